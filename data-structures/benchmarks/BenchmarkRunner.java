@@ -0,0 +1,144 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/*
+*   Small benchmark harness shared by the *Benchmark classes.
+*
+*   Every benchmark is a workload with an untimed setup() and a timed run(). The runner executes
+*   a number of warmup iterations followed by measured iterations and reports, per benchmark:
+*   average time per operation, throughput, and the allocation rate observed on the benchmark
+*   thread (bytes per operation and MB/sec) together with the GC count and time spent in GC,
+*   which is the same information the gc profiler of a JMH run would show.
+*
+*   The harness is configured through system properties:
+*       -Dbench.warmup=5          number of warmup iterations
+*       -Dbench.iterations=10     number of measured iterations
+*       -Dbench.filter=regex      only run benchmarks whose name matches the regex
+*       -Dbench.sizes=1000,100000 sizes used by the parametrized benchmarks
+* */
+
+public final class BenchmarkRunner {
+
+    // a unit of work to be measured
+    public interface Workload {
+
+        // prepares the state for the next measured call, it's not timed
+        default void setup() {}
+
+        // the timed part, returns a value derived from the work so the JIT can't discard it
+        int run();
+    }
+
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("bench.warmup", 5);
+    private static final int MEASURED_ITERATIONS = Integer.getInteger("bench.iterations", 10);
+    private static final Pattern FILTER = Pattern.compile(System.getProperty("bench.filter", ".*"));
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // sink for the values returned by the workloads
+    private static int sink;
+
+    private BenchmarkRunner() {}
+
+    // returns the sizes to use, either the ones given by -Dbench.sizes or the defaults
+    public static int[] sizes(int... defaults) {
+        String property = System.getProperty("bench.sizes");
+        if (property == null) return defaults;
+
+        String[] parts = property.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) sizes[i] = Integer.parseInt(parts[i].trim());
+        return sizes;
+    }
+
+    // prints the header of the result table
+    public static void header() {
+        System.out.printf(Locale.ROOT, "%-66s %12s %14s %12s %10s %6s %8s%n",
+                "Benchmark", "ns/op", "ops/s", "B/op", "MB/s", "gc", "gc ms");
+    }
+
+    // true if the benchmark is selected by -Dbench.filter, used to skip expensive fixtures
+    public static boolean enabled(String name) {
+        return FILTER.matcher(name).find();
+    }
+
+    // run a workload, where every call to run() performs opsPerInvocation operations
+    public static void run(String name, int opsPerInvocation, Workload workload) {
+        if (!enabled(name)) return;
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            workload.setup();
+            sink += workload.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long totalNanos = 0, totalBytes = 0, totalOps = 0;
+        long gcCountBefore = gcCount(), gcTimeBefore = gcTime();
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            workload.setup();
+
+            long bytesBefore = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            sink += workload.run();
+            long elapsed = System.nanoTime() - start;
+            long bytesAfter = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+
+            totalNanos += elapsed;
+            totalBytes += bytesAfter - bytesBefore;
+            totalOps += opsPerInvocation;
+        }
+
+        double nsPerOp = (double) totalNanos / totalOps;
+        double opsPerSecond = 1e9 / nsPerOp;
+        double bytesPerOp = (double) totalBytes / totalOps;
+        double megabytesPerSecond = totalBytes / (1024.0 * 1024.0) / (totalNanos / 1e9);
+
+        System.out.printf(Locale.ROOT, "%-66s %12.2f %14.0f %12.2f %10.1f %6d %8d%n",
+                name, nsPerOp, opsPerSecond, bytesPerOp, megabytesPerSecond,
+                gcCount() - gcCountBefore, gcTime() - gcTimeBefore);
+    }
+
+    // number of collections done so far by all the collectors
+    static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+
+    // accumulated collection time in milliseconds of all the collectors
+    static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            time += Math.max(0, gc.getCollectionTime());
+        return time;
+    }
+
+    // run every benchmark class of the suite
+    public static void main(String[] args) {
+        List<String> suite = new ArrayList<>(List.of(
+                "HashTableBenchmark", "PrimitiveHashTableBenchmark", "IndexingBenchmark", "StackQueueBenchmark",
+                "MinPriorityQueueBenchmark", "UnionFindBenchmark", "ResizeLatencyBenchmark",
+                "ConcurrentHashTableBenchmark", "SnapshotBenchmark", "ParallelBuildBenchmark", "CacheBenchmark",
+                "ProbeLengthBenchmark", "ResizingArrayBenchmark"));
+
+        if (args.length > 0) suite = List.of(args);
+
+        for (String benchmark : suite) {
+            try {
+                Class.forName(benchmark).getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Unable to run " + benchmark, e);
+            }
+        }
+
+        // keep the sink alive
+        if (sink == 42) System.out.println();
+    }
+}
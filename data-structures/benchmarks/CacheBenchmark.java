@@ -0,0 +1,193 @@
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/*
+*   Hit rate and cost per request of the bounded caches against a HashTableSC that is cleared
+*   when it fills up, the way it was used as a cache before.
+*
+*   Every request is a get() followed by a put() on a miss. The traces are:
+*       zipf        keys drawn from a Zipf distribution (s = 0.9) over 100 times the cache size
+*       zipfScan    the same, with a scan of as many never repeated keys as the cache holds
+*                   after every 10 cache sizes of requests
+*       loop        the keys 0 .. 1.5 times the cache size requested in a loop, the worst case
+*                   of LRU (it always evicts the key requested next)
+*
+*   The hit rates are printed first, then the time per request of each trace.
+*
+*   The expiration benchmarks put the keys of the zipf trace into an LruCache bounded by time
+*   only, with a clock advanced by 1 ms on every put. Without a time to live the cache keeps
+*   every key; with one between 1 and 60 s the entries keep expiring and being reclaimed by
+*   the timer wheel while the cache is written, so it holds at most about 30000 keys.
+* */
+
+public class CacheBenchmark {
+
+    // a get of the key followed by a put on a miss, returns true on a hit
+    interface Cache {
+        boolean request(Integer key);
+    }
+
+    enum Policy {
+
+        CLEAR_ON_FULL(maximumSize -> {
+            HashTableSC<Integer, Integer> table = new HashTableSC<>();
+            return key -> {
+                if (table.get(key) != null) return true;
+                if (table.size() >= maximumSize) table.clear();
+                table.add(key, key);
+                return false;
+            };
+        }),
+
+        LRU(maximumSize -> {
+            LruCache<Integer, Integer> cache = new LruCache<>(maximumSize);
+            return key -> {
+                if (cache.get(key) != null) return true;
+                cache.put(key, key);
+                return false;
+            };
+        }),
+
+        TINY_LFU(maximumSize -> {
+            TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(maximumSize);
+            return key -> {
+                if (cache.get(key) != null) return true;
+                cache.put(key, key);
+                return false;
+            };
+        });
+
+        private final IntFunction<Cache> factory;
+
+        Policy(IntFunction<Cache> factory) {
+            this.factory = factory;
+        }
+
+        Cache create(int maximumSize) {
+            return factory.apply(maximumSize);
+        }
+    }
+
+    // unbounded LruCache reading its time from a clock moved by the benchmark
+    static final class SimulatedClockCache extends LruCache<Integer, Integer> {
+
+        long nanos;
+
+        SimulatedClockCache() {
+            super(Long.MAX_VALUE);
+        }
+
+        @Override
+        protected long currentTime() {
+            return nanos;
+        }
+    }
+
+    private static final int TRACE_LENGTH = 1_000_000;
+    private static final double ZIPF_EXPONENT = 0.9;
+    private static final long SEED = 0x5DEECE66DL;
+
+    public static void main(String[] args) {
+        int[] sizes = BenchmarkRunner.sizes(1_000, 10_000);
+
+        String[] traceNames = {"zipf", "zipfScan", "loop"};
+        Integer[][][] traces = new Integer[sizes.length][][];
+        for (int i = 0; i < sizes.length; i++)
+            traces[i] = new Integer[][] {zipf(sizes[i], false), zipf(sizes[i], true), loop(sizes[i])};
+
+        System.out.printf(Locale.ROOT, "%-66s %10s %12s%n", "Cache hit rate", "hit rate", "requests");
+        for (int i = 0; i < sizes.length; i++) {
+            for (int t = 0; t < traceNames.length; t++) {
+                for (Policy policy : Policy.values()) {
+                    String name = "hitRate:" + policy + ":" + traceNames[t] + ":n=" + sizes[i];
+                    if (!BenchmarkRunner.enabled(name)) continue;
+
+                    System.out.printf(Locale.ROOT, "%-66s %10.4f %12d%n", name,
+                            (double) hits(policy.create(sizes[i]), traces[i][t]) / traces[i][t].length, traces[i][t].length);
+                }
+            }
+        }
+        System.out.println();
+
+        BenchmarkRunner.header();
+        for (int i = 0; i < sizes.length; i++) {
+            for (int t = 0; t < traceNames.length; t++) {
+                Integer[] trace = traces[i][t];
+                for (Policy policy : Policy.values()) {
+                    int size = sizes[i];
+                    BenchmarkRunner.run("request:" + policy + ":" + traceNames[t] + ":n=" + size, trace.length,
+                            () -> hits(policy.create(size), trace));
+                }
+            }
+        }
+
+        for (int i = 0; i < sizes.length; i++) {
+            Integer[] keys = traces[i][0];
+            long[] timesToLive = new long[keys.length];
+            Random random = new Random(SEED);
+            for (int j = 0; j < keys.length; j++) timesToLive[j] = 1 + random.nextInt(60);
+
+            int size = sizes[i];
+            BenchmarkRunner.run("put:LRU:noExpiration:n=" + size, keys.length, () -> {
+                SimulatedClockCache cache = new SimulatedClockCache();
+                for (Integer key : keys) {
+                    cache.nanos += 1_000_000;
+                    cache.put(key, key);
+                }
+                return cache.size();
+            });
+
+            BenchmarkRunner.run("put:LRU:timeToLive:n=" + size, keys.length, () -> {
+                SimulatedClockCache cache = new SimulatedClockCache();
+                for (int j = 0; j < keys.length; j++) {
+                    cache.nanos += 1_000_000;
+                    cache.put(keys[j], keys[j], timesToLive[j], TimeUnit.SECONDS);
+                }
+                return cache.size();
+            });
+        }
+    }
+
+    static int hits(Cache cache, Integer[] trace) {
+        int hits = 0;
+        for (Integer key : trace)
+            if (cache.request(key)) hits++;
+        return hits;
+    }
+
+    // TRACE_LENGTH keys following a Zipf distribution over 100 * cacheSize keys, rank 0 being
+    // the most frequent. With scans, the scanned keys are negative so they never repeat
+    static Integer[] zipf(int cacheSize, boolean scans) {
+        int universe = 100 * cacheSize;
+        double[] cumulative = new double[universe];
+        double sum = 0;
+        for (int rank = 0; rank < universe; rank++) {
+            sum += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulative[rank] = sum;
+        }
+
+        Random random = new Random(SEED);
+        Integer[] trace = new Integer[TRACE_LENGTH];
+        int scanned = 0;
+        for (int i = 0; i < TRACE_LENGTH; i++) {
+            if (scans && i % (11 * cacheSize) >= 10 * cacheSize) {
+                trace[i] = -1 - scanned++;
+            } else {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                trace[i] = rank >= 0 ? rank : Math.min(-rank - 1, universe - 1);
+            }
+        }
+
+        return trace;
+    }
+
+    static Integer[] loop(int cacheSize) {
+        int keys = cacheSize + cacheSize / 2;
+        Integer[] trace = new Integer[TRACE_LENGTH];
+        for (int i = 0; i < TRACE_LENGTH; i++) trace[i] = i % keys;
+        return trace;
+    }
+}
@@ -0,0 +1,186 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/*
+*   Multi threaded throughput of ConcurrentHashTableSC and the lock-free open addressing tables
+*   against a HashTableSC guarded by a single lock (the synchronized wrapper), with
+*   java.util.concurrent.ConcurrentHashMap as a reference.
+*
+*   Every invocation runs the same number of operations on every thread over a table filled
+*   with n keys, following one of the mixes:
+*       READ_ONLY     100% get
+*       READ_MOSTLY   90% get, 10% put
+*       WRITE_HEAVY   50% get, 50% put
+*       MERGE         counter increments, merge(key, 1, Integer::sum) or its locked equivalent,
+*                     skipped for the lock-free tables which have no atomic read-modify-write
+*
+*   The thread counts are taken from -Dbench.threads (default 1,2,4 and the number of cores).
+*   Note the allocation columns only account for the calling thread, not for the workers.
+* */
+
+public class ConcurrentHashTableBenchmark {
+
+    // common view over the tables under test
+    interface Table {
+        Integer get(Integer key);
+        void put(Integer key, Integer value);
+        void increment(Integer key);
+    }
+
+    enum Implementation {
+
+        SYNCHRONIZED_SC(true, () -> {
+            HashTableSC<Integer, Integer> table = new HashTableSC<>();
+            return new Table() {
+                public Integer get(Integer key) {
+                    synchronized (table) { return table.get(key); }
+                }
+                public void put(Integer key, Integer value) {
+                    synchronized (table) { table.add(key, value); }
+                }
+                public void increment(Integer key) {
+                    synchronized (table) {
+                        Integer count = table.get(key);
+                        table.add(key, count == null ? 1 : count + 1);
+                    }
+                }
+            };
+        }),
+
+        CONCURRENT_SC(true, () -> {
+            ConcurrentHashTableSC<Integer, Integer> table = new ConcurrentHashTableSC<>();
+            return new Table() {
+                public Integer get(Integer key) { return table.get(key); }
+                public void put(Integer key, Integer value) { table.add(key, value); }
+                public void increment(Integer key) { table.merge(key, 1, Integer::sum); }
+            };
+        }),
+
+        LOCK_FREE_LINEAR_PROBING(false, () -> lockFree(new ConcurrentHashTableLinearProbing<>())),
+
+        LOCK_FREE_QUADRATIC_PROBING(false, () -> lockFree(new ConcurrentHashTableQuadraticProbing<>())),
+
+        JDK_CONCURRENT_HASH_MAP(true, () -> {
+            ConcurrentHashMap<Integer, Integer> table = new ConcurrentHashMap<>();
+            return new Table() {
+                public Integer get(Integer key) { return table.get(key); }
+                public void put(Integer key, Integer value) { table.put(key, value); }
+                public void increment(Integer key) { table.merge(key, 1, Integer::sum); }
+            };
+        });
+
+        // whether the table can increment a counter atomically
+        private final boolean merges;
+        private final Supplier<Table> factory;
+
+        Implementation(boolean merges, Supplier<Table> factory) {
+            this.merges = merges;
+            this.factory = factory;
+        }
+
+        Table create() {
+            return factory.get();
+        }
+    }
+
+    static Table lockFree(ConcurrentHashTableOpenAddressingBase<Integer, Integer> table) {
+        return new Table() {
+            public Integer get(Integer key) { return table.get(key); }
+            public void put(Integer key, Integer value) { table.insert(key, value); }
+            public void increment(Integer key) { throw new UnsupportedOperationException(); }
+        };
+    }
+
+    enum Mix { READ_ONLY, READ_MOSTLY, WRITE_HEAVY, MERGE }
+
+    private static final int OPERATIONS_PER_THREAD = 200_000;
+
+    // thread counts to run, -Dbench.threads or the defaults
+    static int[] threadCounts() {
+        String property = System.getProperty("bench.threads");
+        if (property != null) {
+            String[] parts = property.split(",");
+            int[] threads = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) threads[i] = Integer.parseInt(parts[i].trim());
+            return threads;
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        return cores > 4 ? new int[] {1, 2, 4, cores} : new int[] {1, 2, 4};
+    }
+
+    // operations of one thread over a table of the given keys, every thread gets its own sequence
+    static int mixedOperations(Table table, Integer[] keys, int[] indexes, Mix mix) {
+        int sum = 0;
+
+        for (int i = 0; i < indexes.length; i++) {
+            Integer key = keys[indexes[i]];
+
+            switch (mix) {
+                case READ_ONLY -> sum += table.get(key);
+                case READ_MOSTLY -> {
+                    if (i % 10 == 0) table.put(key, i);
+                    else sum += table.get(key);
+                }
+                case WRITE_HEAVY -> {
+                    if ((i & 1) == 0) table.put(key, i);
+                    else sum += table.get(key);
+                }
+                case MERGE -> table.increment(key);
+            }
+        }
+
+        return sum;
+    }
+
+    public static void main(String[] args) {
+        BenchmarkRunner.header();
+
+        for (int size : BenchmarkRunner.sizes(1_000, 1_000_000)) {
+            Integer[] keys = KeyDistribution.UNIFORM.keys(size);
+
+            for (int threads : threadCounts()) {
+                int[][] indexes = new int[threads][OPERATIONS_PER_THREAD];
+                Random random = new Random(threads);
+                for (int[] sequence : indexes)
+                    for (int i = 0; i < sequence.length; i++) sequence[i] = random.nextInt(size);
+
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+                for (Mix mix : Mix.values()) {
+                    for (Implementation implementation : Implementation.values()) {
+                        String name = mix + ":" + implementation + ":threads=" + threads + ":n=" + size;
+                        if (!BenchmarkRunner.enabled(name) || (mix == Mix.MERGE && !implementation.merges)) continue;
+
+                        Table table = implementation.create();
+                        for (Integer key : keys) table.put(key, 0);
+
+                        List<Callable<Integer>> tasks = new ArrayList<>(threads);
+                        for (int[] sequence : indexes)
+                            tasks.add(() -> mixedOperations(table, keys, sequence, mix));
+
+                        BenchmarkRunner.run(name, threads * OPERATIONS_PER_THREAD, () -> {
+                            int sum = 0;
+                            try {
+                                for (Future<Integer> result : executor.invokeAll(tasks)) sum += result.get();
+                            } catch (InterruptedException | ExecutionException e) {
+                                throw new IllegalStateException(e);
+                            }
+                            return sum;
+                        });
+                    }
+                }
+
+                executor.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+import java.util.function.BiFunction;
+
+/*
+*   put/get/remove benchmarks for the hash table implementations.
+*
+*   Every benchmark is parametrized by the table implementation, the number of keys, the
+*   distribution of the keys and the maximum load factor of the table. The tables start with
+*   their default capacity so the put benchmark also accounts for the cost of resizing.
+* */
+
+public class HashTableBenchmark {
+
+    // common view over the different hash table APIs
+    interface Table {
+        Object put(Integer key, Integer value);
+        Object get(Integer key);
+        Object remove(Integer key);
+
+        // bulk insertion, the tables that have no putAll insert one key at a time
+        default void putAll(Integer[] keys, Integer[] values) {
+            for (int i = 0; i < keys.length; i++) put(keys[i], values[i]);
+        }
+    }
+
+    // an implementation under test, created from a (capacity, loadFactor) pair
+    enum Implementation {
+
+        SEPARATE_CHAINING((capacity, loadFactor) -> {
+            HashTableSC<Integer, Integer> table = new HashTableSC<>(capacity, loadFactor);
+            return new Table() {
+                public Object put(Integer key, Integer value) { return table.add(key, value); }
+                public Object get(Integer key) { return table.get(key); }
+                public Object remove(Integer key) { return table.remove(key); }
+                public void putAll(Integer[] keys, Integer[] values) { table.putAll(keys, values); }
+            };
+        }),
+
+        SEPARATE_CHAINING_FLAT((capacity, loadFactor) -> {
+            HashTableSCFlat<Integer, Integer> table = new HashTableSCFlat<>(capacity, loadFactor);
+            return new Table() {
+                public Object put(Integer key, Integer value) { return table.add(key, value); }
+                public Object get(Integer key) { return table.get(key); }
+                public Object remove(Integer key) { return table.remove(key); }
+            };
+        }),
+
+        LINEAR_PROBING((capacity, loadFactor) -> openAddressing(new HashTableLinearProbing<>(capacity, loadFactor))),
+
+        QUADRATIC_PROBING((capacity, loadFactor) -> openAddressing(new HashTableQuadraticProbing<>(capacity, loadFactor))),
+
+        DOUBLE_HASHING((capacity, loadFactor) -> openAddressing(new HashTableDoubleHashing<>(capacity, loadFactor))),
+
+        ROBIN_HOOD((capacity, loadFactor) -> openAddressing(new HashTableRobinHood<>(capacity, loadFactor))),
+
+        SWISS((capacity, loadFactor) -> openAddressing(new HashTableSwiss<>(capacity, loadFactor))),
+
+        CUCKOO((capacity, loadFactor) -> openAddressing(new HashTableCuckoo<>(capacity, loadFactor)));
+
+        private final BiFunction<Integer, Double, Table> factory;
+
+        Implementation(BiFunction<Integer, Double, Table> factory) {
+            this.factory = factory;
+        }
+
+        Table create(int capacity, double loadFactor) {
+            return factory.apply(capacity, loadFactor);
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final double[] LOAD_FACTORS = {0.5, 0.75};
+    private static final int CHURN_ROUNDS = 4;
+
+    private static Table openAddressing(HashTableOpenAddressingBase<Integer, Integer> table) {
+        return new Table() {
+            public Object put(Integer key, Integer value) { return table.insert(key, value); }
+            public Object get(Integer key) { return table.get(key); }
+            public Object remove(Integer key) { return table.remove(key); }
+            public void putAll(Integer[] keys, Integer[] values) { table.putAll(keys, values); }
+        };
+    }
+
+    // fill a fresh table with all the keys
+    static void put(Implementation implementation, Integer[] keys, double loadFactor, String name) {
+        BenchmarkRunner.run(name, keys.length, new BenchmarkRunner.Workload() {
+            Table table;
+
+            public void setup() {
+                table = implementation.create(INITIAL_CAPACITY, loadFactor);
+            }
+
+            public int run() {
+                for (Integer key : keys) table.put(key, key);
+                return keys.length;
+            }
+        });
+    }
+
+    // fill a fresh table with all the keys in a single call, which sizes it once
+    static void putAll(Implementation implementation, Integer[] keys, double loadFactor, String name) {
+        BenchmarkRunner.run(name, keys.length, new BenchmarkRunner.Workload() {
+            Table table;
+
+            public void setup() {
+                table = implementation.create(INITIAL_CAPACITY, loadFactor);
+            }
+
+            public int run() {
+                table.putAll(keys, keys);
+                return keys.length;
+            }
+        });
+    }
+
+    // look up every key of a filled table, hits or misses
+    static void get(Implementation implementation, Integer[] keys, Integer[] lookups, double loadFactor, String name) {
+        if (!BenchmarkRunner.enabled(name)) return;
+
+        Table table = implementation.create(INITIAL_CAPACITY, loadFactor);
+        for (Integer key : keys) table.put(key, key);
+
+        BenchmarkRunner.run(name, lookups.length, () -> {
+            int found = 0;
+            for (Integer key : lookups) if (table.get(key) != null) found++;
+            return found;
+        });
+    }
+
+    // Look up keys of a table that went through several rounds of removing all its keys and
+    // inserting others, the state a high churn cache is in. Tables that leave deleted markers
+    // behind pay for them here.
+    static void getAfterChurn(Implementation implementation, Integer[] keys, Integer[] missing, double loadFactor, String name) {
+        if (!BenchmarkRunner.enabled(name)) return;
+
+        Table table = implementation.create(INITIAL_CAPACITY, loadFactor);
+        for (Integer key : keys) table.put(key, key);
+
+        Integer[] current = keys, other = missing;
+        for (int round = 0; round < CHURN_ROUNDS; round++) {
+            for (int i = 0; i < current.length; i++) {
+                table.remove(current[i]);
+                table.put(other[i], other[i]);
+            }
+
+            Integer[] aux = current;
+            current = other;
+            other = aux;
+        }
+
+        final Integer[] lookups = current;
+        BenchmarkRunner.run(name, lookups.length, () -> {
+            int found = 0;
+            for (Integer key : lookups) if (table.get(key) != null) found++;
+            return found;
+        });
+    }
+
+    // remove every key of a filled table
+    static void remove(Implementation implementation, Integer[] keys, double loadFactor, String name) {
+        BenchmarkRunner.run(name, keys.length, new BenchmarkRunner.Workload() {
+            Table table;
+
+            public void setup() {
+                table = implementation.create(INITIAL_CAPACITY, loadFactor);
+                for (Integer key : keys) table.put(key, key);
+            }
+
+            public int run() {
+                int removed = 0;
+                for (Integer key : keys) if (table.remove(key) != null) removed++;
+                return removed;
+            }
+        });
+    }
+
+    public static void main(String[] args) {
+        BenchmarkRunner.header();
+
+        for (int size : BenchmarkRunner.sizes(1_000, 100_000, 1_000_000)) {
+            for (KeyDistribution distribution : KeyDistribution.values()) {
+                Integer[] keys = distribution.keys(size);
+                Integer[] missing = distribution.missingKeys(size);
+
+                for (double loadFactor : LOAD_FACTORS) {
+                    for (Implementation implementation : Implementation.values()) {
+                        String params = implementation + ":" + distribution + ":n=" + size + ":lf=" + loadFactor;
+
+                        put(implementation, keys, loadFactor, "put:" + params);
+                        putAll(implementation, keys, loadFactor, "putAll:" + params);
+                        get(implementation, keys, keys, loadFactor, "getHit:" + params);
+                        get(implementation, keys, missing, loadFactor, "getMiss:" + params);
+                        remove(implementation, keys, loadFactor, "remove:" + params);
+                        getAfterChurn(implementation, keys, missing, loadFactor, "getAfterChurn:" + params);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+*   Compares the ways of turning a hash code into a table index:
+*
+*       MODULO       (hash & 0x7FFFFFFF) % capacity, the policy the tables used before, with the
+*                    capacity growing as 7 * 2^k (linear probing) or 2^k (quadratic probing)
+*       MASK         hash & (capacity - 1) over a power of two capacity
+*       SPREAD_MASK  Hashing.spread(hash) & (capacity - 1), the policy the tables use now
+*
+*   The first part reports the average number of probes needed to insert (and so to find) every
+*   key when the keys are placed with linear and quadratic probing at the default load factor.
+*   The second part measures the cost of computing an index alone.
+* */
+
+public class IndexingBenchmark {
+
+    enum Policy { MODULO, MASK, SPREAD_MASK }
+
+    enum Probing { LINEAR, QUADRATIC }
+
+    private static final double LOAD_FACTOR = 0.65;
+    // the index loops are cheap, every invocation goes over the hashes several times
+    private static final int PASSES = 10;
+
+    // capacity a table reaches to hold n keys under the given policy
+    static int capacityFor(int n, Policy policy, Probing probing) {
+        int capacity = (policy == Policy.MODULO && probing == Probing.LINEAR) ? 7 : 8;
+        while (n >= (int) (capacity * LOAD_FACTOR)) capacity *= 2;
+        return capacity;
+    }
+
+    static int index(int hash, int capacity, Policy policy) {
+        return switch (policy) {
+            case MODULO -> (hash & 0x7FFFFFFF) % capacity;
+            case MASK -> hash & (capacity - 1);
+            case SPREAD_MASK -> Hashing.spread(hash) & (capacity - 1);
+        };
+    }
+
+    // average number of cells visited to insert every key in a table of the final capacity
+    static double averageProbes(Integer[] keys, Policy policy, Probing probing) {
+        int capacity = capacityFor(keys.length, policy, probing);
+        boolean[] used = new boolean[capacity];
+        long probes = 0;
+
+        for (Integer key : keys) {
+            int offset = index(key.hashCode(), capacity, policy);
+
+            for (int i = offset, x = 1 ;; x++) {
+                probes++;
+                if (!used[i]) {
+                    used[i] = true;
+                    break;
+                }
+
+                int step = probing == Probing.LINEAR ? x : (x * x + x) >> 1;
+                i = (policy == Policy.MODULO) ? (offset + step) % capacity : (offset + step) & (capacity - 1);
+            }
+        }
+
+        return (double) probes / keys.length;
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = BenchmarkRunner.sizes(1_000, 100_000, 1_000_000);
+
+        System.out.printf("%-40s %12s %12s %12s%n", "Average probes per key", "MODULO", "MASK", "SPREAD_MASK");
+        for (int size : sizes) {
+            for (KeyDistribution distribution : KeyDistribution.values()) {
+                Integer[] keys = distribution.keys(size);
+
+                for (Probing probing : Probing.values()) {
+                    System.out.printf("%-40s", probing + ":" + distribution + ":n=" + size);
+                    for (Policy policy : Policy.values())
+                        System.out.printf(" %12.2f", averageProbes(keys, policy, probing));
+                    System.out.println();
+                }
+            }
+        }
+        System.out.println();
+
+        BenchmarkRunner.header();
+        for (int size : sizes) {
+            int[] hashes = new int[size];
+            Integer[] keys = KeyDistribution.UNIFORM.keys(size);
+            for (int i = 0; i < size; i++) hashes[i] = keys[i];
+
+            int oldCapacity = capacityFor(size, Policy.MODULO, Probing.LINEAR);
+            int mask = capacityFor(size, Policy.MASK, Probing.LINEAR) - 1;
+
+            BenchmarkRunner.run("index:MODULO:n=" + size, PASSES * size, () -> {
+                int sum = 0;
+                for (int pass = 0; pass < PASSES; pass++)
+                    for (int hash : hashes) sum += (hash & 0x7FFFFFFF) % oldCapacity;
+                return sum;
+            });
+
+            BenchmarkRunner.run("index:MASK:n=" + size, PASSES * size, () -> {
+                int sum = 0;
+                for (int pass = 0; pass < PASSES; pass++)
+                    for (int hash : hashes) sum += hash & mask;
+                return sum;
+            });
+
+            BenchmarkRunner.run("index:SPREAD_MASK:n=" + size, PASSES * size, () -> {
+                int sum = 0;
+                for (int pass = 0; pass < PASSES; pass++)
+                    for (int hash : hashes) sum += Hashing.spread(hash) & mask;
+                return sum;
+            });
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/*
+*   Distributions used to generate the keys of the hash table benchmarks.
+* */
+
+public enum KeyDistribution {
+
+    // 0, 1, 2, ... the best case for an identity hashCode() reduced with a modulo or a mask
+    SEQUENTIAL,
+    // distinct random integers
+    UNIFORM,
+    // distinct integers sharing their low bits (multiples of 1024), a weak hashCode() scenario
+    CLUSTERED;
+
+    private static final long SEED = 0x5DEECE66DL;
+
+    // generate n distinct keys following the distribution
+    public Integer[] keys(int n) {
+        Integer[] keys = new Integer[n];
+
+        switch (this) {
+            case SEQUENTIAL -> {
+                for (int i = 0; i < n; i++) keys[i] = i;
+            }
+            case CLUSTERED -> {
+                for (int i = 0; i < n; i++) keys[i] = i << 10;
+            }
+            case UNIFORM -> {
+                Random random = new Random(SEED);
+                Set<Integer> seen = new HashSet<>(2 * n);
+                for (int i = 0; i < n; ) {
+                    int key = random.nextInt();
+                    if (seen.add(key)) keys[i++] = key;
+                }
+            }
+        }
+
+        return keys;
+    }
+
+    // generate n keys that are not part of keys(n), used to measure unsuccessful lookups
+    public Integer[] missingKeys(int n) {
+        Integer[] present = keys(n);
+        Set<Integer> seen = new HashSet<>(2 * n);
+        for (Integer key : present) seen.add(key);
+
+        Integer[] missing = new Integer[n];
+        Random random = new Random(~SEED);
+        for (int i = 0; i < n; ) {
+            int key = switch (this) {
+                case SEQUENTIAL -> n + i;
+                case CLUSTERED -> ((n + i) << 10) | 1;
+                case UNIFORM -> random.nextInt();
+            };
+            if (!seen.contains(key)) missing[i++] = key;
+        }
+
+        return missing;
+    }
+}
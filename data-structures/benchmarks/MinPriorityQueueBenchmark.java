@@ -0,0 +1,53 @@
+import java.util.Random;
+
+/*
+*   insert/deleteMin benchmarks for the binary heap priority queue.
+* */
+
+public class MinPriorityQueueBenchmark {
+
+    public static void main(String[] args) {
+        BenchmarkRunner.header();
+
+        for (int size : BenchmarkRunner.sizes(1_000, 100_000, 1_000_000)) {
+            for (KeyDistribution distribution : new KeyDistribution[]{KeyDistribution.SEQUENTIAL, KeyDistribution.UNIFORM}) {
+                Integer[] keys = distribution.keys(size);
+
+                // sequential keys are shuffled, otherwise every insert would be a no-op swim
+                if (distribution == KeyDistribution.SEQUENTIAL) shuffle(keys);
+
+                String params = distribution + ":n=" + size;
+
+                BenchmarkRunner.run("insert:" + params, size, () -> {
+                    MinPriorityQueue<Integer> pq = new MinPriorityQueue<>();
+                    for (Integer key : keys) pq.insert(key);
+                    return pq.size();
+                });
+
+                BenchmarkRunner.run("deleteMin:" + params, size, new BenchmarkRunner.Workload() {
+                    MinPriorityQueue<Integer> pq;
+
+                    public void setup() {
+                        pq = new MinPriorityQueue<>(keys);
+                    }
+
+                    public int run() {
+                        int sum = 0;
+                        while (!pq.isEmpty()) sum += pq.deleteMin();
+                        return sum;
+                    }
+                });
+            }
+        }
+    }
+
+    private static void shuffle(Integer[] keys) {
+        Random random = new Random(keys.length);
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer aux = keys[i];
+            keys[i] = keys[j];
+            keys[j] = aux;
+        }
+    }
+}
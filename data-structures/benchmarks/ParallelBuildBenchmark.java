@@ -0,0 +1,39 @@
+import java.util.concurrent.ForkJoinPool;
+
+/*
+*   Time to build a HashTableSC from a batch of keys: putAll on the calling thread against
+*   putAllParallel on fork/join pools of increasing size.
+*
+*   The pool sizes are taken from -Dbench.threads, as in ConcurrentHashTableBenchmark. Both
+*   start from a table with the default capacity, so they include sizing the table once.
+*   Note the allocation columns only account for the calling thread, not for the workers.
+* */
+
+public class ParallelBuildBenchmark {
+
+    public static void main(String[] args) {
+        BenchmarkRunner.header();
+
+        for (int size : BenchmarkRunner.sizes(100_000, 1_000_000)) {
+            Integer[] keys = KeyDistribution.UNIFORM.keys(size);
+
+            BenchmarkRunner.run("putAll:SEPARATE_CHAINING:n=" + size, size, () -> {
+                HashTableSC<Integer, Integer> table = new HashTableSC<>();
+                table.putAll(keys, keys);
+                return table.size();
+            });
+
+            for (int threads : ConcurrentHashTableBenchmark.threadCounts()) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+
+                BenchmarkRunner.run("putAllParallel:SEPARATE_CHAINING:threads=" + threads + ":n=" + size, size, () -> {
+                    HashTableSC<Integer, Integer> table = new HashTableSC<>();
+                    table.putAllParallel(keys, keys, pool);
+                    return table.size();
+                });
+
+                pool.shutdown();
+            }
+        }
+    }
+}
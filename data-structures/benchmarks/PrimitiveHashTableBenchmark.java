@@ -0,0 +1,143 @@
+/*
+*   put/get/remove benchmarks of the primitive specialized tables against the boxed
+*   open addressing tables using the same probing strategy. The primitive versions are
+*   expected to allocate nothing on get and only the resized tables on put. The off-heap
+*   tables shouldn't allocate on the heap at all, their cells are direct memory.
+* */
+
+public class PrimitiveHashTableBenchmark {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final double LOAD_FACTOR = 0.65;
+
+    public static void main(String[] args) {
+        BenchmarkRunner.header();
+
+        for (int size : BenchmarkRunner.sizes(1_000, 100_000, 1_000_000)) {
+            for (KeyDistribution distribution : KeyDistribution.values()) {
+                Integer[] boxedKeys = distribution.keys(size);
+                int[] keys = new int[size];
+                for (int i = 0; i < size; i++) keys[i] = boxedKeys[i];
+
+                String params = distribution + ":n=" + size;
+
+                boxed("LINEAR_PROBING", () -> new HashTableLinearProbing<>(INITIAL_CAPACITY, LOAD_FACTOR), boxedKeys, params);
+                boxed("QUADRATIC_PROBING", () -> new HashTableQuadraticProbing<>(INITIAL_CAPACITY, LOAD_FACTOR), boxedKeys, params);
+                intInt("INT_INT_LINEAR_PROBING", () -> new IntIntHashTableLinearProbing(INITIAL_CAPACITY, LOAD_FACTOR), keys, params);
+                intInt("INT_INT_QUADRATIC_PROBING", () -> new IntIntHashTableQuadraticProbing(INITIAL_CAPACITY, LOAD_FACTOR), keys, params);
+                offHeap("OFF_HEAP_LINEAR_PROBING", () -> new OffHeapLongLongHashTableLinearProbing(INITIAL_CAPACITY, LOAD_FACTOR), keys, params);
+                offHeap("OFF_HEAP_QUADRATIC_PROBING", () -> new OffHeapLongLongHashTableQuadraticProbing(INITIAL_CAPACITY, LOAD_FACTOR), keys, params);
+            }
+        }
+    }
+
+    interface Factory<T> {
+        T create();
+    }
+
+    static void boxed(String name, Factory<HashTableOpenAddressingBase<Integer, Integer>> factory, Integer[] keys, String params) {
+        BenchmarkRunner.run("put:" + name + ":" + params, keys.length, () -> {
+            HashTableOpenAddressingBase<Integer, Integer> table = factory.create();
+            for (Integer key : keys) table.insert(key, key);
+            return table.size();
+        });
+
+        if (BenchmarkRunner.enabled("get:" + name + ":" + params)) {
+            HashTableOpenAddressingBase<Integer, Integer> filled = factory.create();
+            for (Integer key : keys) filled.insert(key, key);
+
+            BenchmarkRunner.run("get:" + name + ":" + params, keys.length, () -> {
+                int sum = 0;
+                for (Integer key : keys) sum += filled.get(key);
+                return sum;
+            });
+        }
+
+        BenchmarkRunner.run("remove:" + name + ":" + params, keys.length, new BenchmarkRunner.Workload() {
+            HashTableOpenAddressingBase<Integer, Integer> table;
+
+            public void setup() {
+                table = factory.create();
+                for (Integer key : keys) table.insert(key, key);
+            }
+
+            public int run() {
+                int sum = 0;
+                for (Integer key : keys) sum += table.remove(key);
+                return sum;
+            }
+        });
+    }
+
+    static void intInt(String name, Factory<IntIntHashTable> factory, int[] keys, String params) {
+        BenchmarkRunner.run("put:" + name + ":" + params, keys.length, () -> {
+            IntIntHashTable table = factory.create();
+            for (int key : keys) table.insert(key, key);
+            return table.size();
+        });
+
+        if (BenchmarkRunner.enabled("get:" + name + ":" + params)) {
+            IntIntHashTable filled = factory.create();
+            for (int key : keys) filled.insert(key, key);
+
+            BenchmarkRunner.run("get:" + name + ":" + params, keys.length, () -> {
+                int sum = 0;
+                for (int key : keys) sum += filled.get(key);
+                return sum;
+            });
+        }
+
+        BenchmarkRunner.run("remove:" + name + ":" + params, keys.length, new BenchmarkRunner.Workload() {
+            IntIntHashTable table;
+
+            public void setup() {
+                table = factory.create();
+                for (int key : keys) table.insert(key, key);
+            }
+
+            public int run() {
+                int sum = 0;
+                for (int key : keys) sum += table.remove(key);
+                return sum;
+            }
+        });
+    }
+
+    // same as intInt, every table is closed once measured so the direct memory doesn't pile up
+    static void offHeap(String name, Factory<OffHeapLongLongHashTable> factory, int[] keys, String params) {
+        BenchmarkRunner.run("put:" + name + ":" + params, keys.length, () -> {
+            try (OffHeapLongLongHashTable table = factory.create()) {
+                for (int key : keys) table.insert(key, key);
+                return table.size();
+            }
+        });
+
+        if (BenchmarkRunner.enabled("get:" + name + ":" + params)) {
+            try (OffHeapLongLongHashTable filled = factory.create()) {
+                for (int key : keys) filled.insert(key, key);
+
+                BenchmarkRunner.run("get:" + name + ":" + params, keys.length, () -> {
+                    long sum = 0;
+                    for (int key : keys) sum += filled.get(key);
+                    return (int) sum;
+                });
+            }
+        }
+
+        BenchmarkRunner.run("remove:" + name + ":" + params, keys.length, new BenchmarkRunner.Workload() {
+            OffHeapLongLongHashTable table;
+
+            public void setup() {
+                if (table != null) table.close();
+                table = factory.create();
+                for (int key : keys) table.insert(key, key);
+            }
+
+            public int run() {
+                long sum = 0;
+                for (int key : keys) sum += table.remove(key);
+                return (int) sum;
+            }
+        });
+    }
+}
@@ -0,0 +1,79 @@
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+/*
+*   Probe lengths of linear probing, quadratic probing and double hashing as the table fills,
+*   which is where their clustering shows.
+*
+*   Every table is created with a capacity of 2^20 cells (the next prime for double hashing)
+*   and a load factor that doesn't let it resize, then filled up to the given load. The probe
+*   lengths are the ones sampled by stats() (see HashTableStats) on a get() of every key, for
+*   the hits, and of as many keys that are not in the table, for the misses:
+*       - linear probing suffers from primary clustering, runs of used cells merge and every
+*         key hashing into a run walks to its end. Both averages grow fast with the load.
+*       - quadratic probing breaks the runs, but the keys with the same first cell still follow
+*         the same sequence (secondary clustering).
+*       - double hashing gives each of those keys its own step, so its averages stay close to
+*         the 1 / (1 - load) of a random probe sequence.
+*   The maximum is the longest probe sequence of a stored key. Timings of the three tables on
+*   the same distributions are in HashTableBenchmark.
+* */
+
+public class ProbeLengthBenchmark {
+
+    enum Implementation {
+
+        LINEAR_PROBING(capacity -> new HashTableLinearProbing<>(capacity, MAXIMUM_LOAD_FACTOR)),
+
+        QUADRATIC_PROBING(capacity -> new HashTableQuadraticProbing<>(capacity, MAXIMUM_LOAD_FACTOR)),
+
+        DOUBLE_HASHING(capacity -> new HashTableDoubleHashing<>(capacity, MAXIMUM_LOAD_FACTOR));
+
+        private final IntFunction<HashTableOpenAddressingBase<Integer, Integer>> factory;
+
+        Implementation(IntFunction<HashTableOpenAddressingBase<Integer, Integer>> factory) {
+            this.factory = factory;
+        }
+
+        HashTableOpenAddressingBase<Integer, Integer> create(int capacity) {
+            return factory.apply(capacity);
+        }
+    }
+
+    private static final int CAPACITY = 1 << 20;
+    private static final double MAXIMUM_LOAD_FACTOR = 0.99;
+    private static final double[] LOADS = {0.5, 0.75, 0.9};
+
+    public static void main(String[] args) {
+        System.out.printf(Locale.ROOT, "%-66s %8s %10s %10s %8s%n",
+                "Probe length", "load", "avg hit", "avg miss", "max");
+
+        for (KeyDistribution distribution : new KeyDistribution[] {KeyDistribution.CLUSTERED, KeyDistribution.SEQUENTIAL}) {
+            for (double load : LOADS) {
+                int n = (int) (load * CAPACITY);
+                Integer[] keys = distribution.keys(n);
+                Integer[] missing = distribution.missingKeys(n);
+
+                for (Implementation implementation : Implementation.values()) {
+                    String name = "probeLength:" + implementation + ":" + distribution + ":load=" + load;
+                    if (!BenchmarkRunner.enabled(name)) continue;
+
+                    HashTableStats hits = lookups(implementation, keys, keys);
+                    HashTableStats misses = lookups(implementation, keys, missing);
+
+                    System.out.printf(Locale.ROOT, "%-66s %8.3f %10.2f %10.2f %8d%n", name, hits.loadFactor(),
+                            hits.averageProbeLength(), misses.averageProbeLength(), hits.maxChainLength());
+                }
+            }
+        }
+    }
+
+    // stats of a table filled with the keys after a get() of every lookup
+    static HashTableStats lookups(Implementation implementation, Integer[] keys, Integer[] lookups) {
+        HashTableOpenAddressingBase<Integer, Integer> table = implementation.create(CAPACITY);
+        table.recordStats(true);
+        for (Integer key : keys) table.insert(key, key);
+        for (Integer key : lookups) table.get(key);
+        return table.stats();
+    }
+}
@@ -0,0 +1,102 @@
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Function;
+
+/*
+*   Latency distribution of single insertions while a table grows from its default capacity,
+*   comparing the stop-the-world resize against the incremental one.
+*
+*   Every insertion is timed on its own, so the percentiles show the cost of the insertions
+*   that trigger a resize (max, and p9999 for the smaller sizes) next to the cost of the common
+*   ones (p50). Throughput benchmarks hide those spikes since they average them over all the
+*   operations. A GC pause lands on the insertion that was running, so the collections of the
+*   measured run are reported too: a max close to the gc time is a GC pause, not a resize.
+*   Run with a large young generation (e.g. -Xmn1g) to keep the collections out of the way.
+* */
+
+public class ResizeLatencyBenchmark {
+
+    // an insertion into a table under test
+    interface Inserter {
+        Object put(Integer key, Integer value);
+    }
+
+    enum Implementation {
+
+        SEPARATE_CHAINING(incremental -> {
+            HashTableSC<Integer, Integer> table = new HashTableSC<>(4, 0.75, incremental);
+            return table::add;
+        }),
+
+        LINEAR_PROBING(incremental -> {
+            HashTableLinearProbing<Integer, Integer> table = new HashTableLinearProbing<>(8, 0.65, incremental);
+            return table::insert;
+        }),
+
+        QUADRATIC_PROBING(incremental -> {
+            HashTableQuadraticProbing<Integer, Integer> table = new HashTableQuadraticProbing<>(8, 0.65, incremental);
+            return table::insert;
+        });
+
+        private final Function<Boolean, Inserter> factory;
+
+        Implementation(Function<Boolean, Inserter> factory) {
+            this.factory = factory;
+        }
+
+        Inserter create(boolean incremental) {
+            return factory.apply(incremental);
+        }
+    }
+
+    private static final int WARMUP_ROUNDS = Integer.getInteger("bench.warmup", 5);
+
+    // nanoseconds taken by every insertion of n keys into a new table
+    static long[] insertLatencies(Implementation implementation, boolean incremental, Integer[] keys) {
+        Inserter table = implementation.create(incremental);
+        long[] latencies = new long[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            long start = System.nanoTime();
+            table.put(keys[i], i);
+            latencies[i] = System.nanoTime() - start;
+        }
+
+        return latencies;
+    }
+
+    // value below which the given fraction of the sorted latencies fall
+    static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = BenchmarkRunner.sizes(100_000, 1_000_000);
+
+        System.out.printf(Locale.ROOT, "%-66s %10s %10s %10s %10s %12s %6s %8s%n",
+                "Insert latency (ns)", "p50", "p99", "p999", "p9999", "max", "gc", "gc ms");
+
+        for (int size : sizes) {
+            Integer[] keys = KeyDistribution.UNIFORM.keys(size);
+
+            for (Implementation implementation : Implementation.values()) {
+                for (boolean incremental : new boolean[] {false, true}) {
+                    String name = "insertLatency:" + implementation + ":" + (incremental ? "incremental" : "stopTheWorld") + ":n=" + size;
+                    if (!BenchmarkRunner.enabled(name)) continue;
+
+                    for (int i = 0; i < WARMUP_ROUNDS; i++) insertLatencies(implementation, incremental, keys);
+
+                    long gcCountBefore = BenchmarkRunner.gcCount(), gcTimeBefore = BenchmarkRunner.gcTime();
+                    long[] latencies = insertLatencies(implementation, incremental, keys);
+                    long gcCount = BenchmarkRunner.gcCount() - gcCountBefore, gcTime = BenchmarkRunner.gcTime() - gcTimeBefore;
+                    Arrays.sort(latencies);
+
+                    System.out.printf(Locale.ROOT, "%-66s %10d %10d %10d %10d %12d %6d %8d%n", name,
+                            percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                            percentile(latencies, 0.9999), latencies[latencies.length - 1], gcCount, gcTime);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+*   Adds and scans of ResizingArray<Long> against LongResizingArray and a plain long[].
+*
+*   The add benchmarks fill an empty array with n elements, their B/op is the memory the array
+*   allocates per element along the way: the boxed Longs (the values are large enough not to
+*   come from the Long cache) and the Object[] arrays for ResizingArray, the long[] arrays for
+*   the other two. The long[] baseline grows the same way, doubling its length when it's full.
+*
+*   The scan benchmarks sum a filled array, with get(i) and with stream() for LongResizingArray,
+*   with the iterator for ResizingArray.
+*
+*   The removal benchmarks work on a filled ResizingArray (the filling is not timed): removeAt
+*   removes REMOVALS elements from its middle, removeIf the even elements in one pass and
+*   removeRange its middle half. They shift the elements in place, so their B/op is ~0.
+*
+*   The sort benchmarks sort the elements in a random order with sort() and parallelSort(), the
+*   latter only scales with the number of cores of the machine. The lookup benchmarks look up
+*   LOOKUPS random elements with indexOf (a linear scan), and with binarySearch after a sort().
+* */
+
+public class ResizingArrayBenchmark {
+
+    // added to the elements so that boxing them allocates
+    private static final long OFFSET = 1L << 40;
+    // elements removed one by one by the removeAt benchmark
+    private static final int REMOVALS = 1_000;
+    // elements looked up by the indexOf and binarySearch benchmarks
+    private static final int LOOKUPS = 1_000;
+    private static final long SEED = 0x5DEECE66DL;
+
+    public static void main(String[] args) {
+        BenchmarkRunner.header();
+
+        for (int size : BenchmarkRunner.sizes(1_000, 100_000, 1_000_000)) {
+            long[] elements = new long[size];
+            for (int i = 0; i < size; i++) elements[i] = OFFSET + i;
+
+            BenchmarkRunner.run("add:ResizingArray:n=" + size, size, () -> {
+                ResizingArray<Long> array = new ResizingArray<>();
+                for (long element : elements) array.add(element);
+                return array.size();
+            });
+
+            BenchmarkRunner.run("add:LongResizingArray:n=" + size, size, () -> {
+                LongResizingArray array = new LongResizingArray();
+                for (long element : elements) array.add(element);
+                return array.size();
+            });
+
+            BenchmarkRunner.run("addAll:LongResizingArray:n=" + size, size, () -> {
+                LongResizingArray array = new LongResizingArray();
+                array.addAll(elements);
+                return array.size();
+            });
+
+            BenchmarkRunner.run("add:long[]:n=" + size, size, () -> {
+                long[] array = new long[8];
+                int length = 0;
+                for (long element : elements) {
+                    if (length == array.length) array = Arrays.copyOf(array, 2 * length);
+                    array[length++] = element;
+                }
+                return length;
+            });
+
+            ResizingArray<Long> boxed = new ResizingArray<>();
+            for (long element : elements) boxed.add(element);
+            LongResizingArray primitive = new LongResizingArray();
+            primitive.addAll(elements);
+
+            BenchmarkRunner.run("scan:ResizingArray:n=" + size, size, () -> {
+                long sum = 0;
+                for (Long element : boxed) sum += element;
+                return (int) sum;
+            });
+
+            BenchmarkRunner.run("scan:LongResizingArray:n=" + size, size, () -> {
+                long sum = 0;
+                for (int i = 0; i < primitive.size(); i++) sum += primitive.get(i);
+                return (int) sum;
+            });
+
+            BenchmarkRunner.run("scanStream:LongResizingArray:n=" + size, size, () -> (int) primitive.stream().sum());
+
+            BenchmarkRunner.run("scan:long[]:n=" + size, size, () -> {
+                long sum = 0;
+                for (long element : elements) sum += element;
+                return (int) sum;
+            });
+
+            Long[] boxedElements = new Long[size];
+            for (int i = 0; i < size; i++) boxedElements[i] = elements[i];
+
+            BenchmarkRunner.run("removeAt:ResizingArray:n=" + size, REMOVALS, new FilledArrayWorkload(boxedElements) {
+                public int run() {
+                    for (int i = 0; i < REMOVALS; i++) array.removeAt(array.size() / 2);
+                    return array.size();
+                }
+            });
+
+            BenchmarkRunner.run("removeIf:ResizingArray:n=" + size, size, new FilledArrayWorkload(boxedElements) {
+                public int run() {
+                    array.removeIf(element -> (element & 1) == 0);
+                    return array.size();
+                }
+            });
+
+            BenchmarkRunner.run("removeRange:ResizingArray:n=" + size, size / 2, new FilledArrayWorkload(boxedElements) {
+                public int run() {
+                    array.removeRange(size / 4, size - size / 4);
+                    return array.size();
+                }
+            });
+
+            Random random = new Random(SEED);
+            Long[] shuffled = boxedElements.clone();
+            for (int i = size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Long swap = shuffled[i];
+                shuffled[i] = shuffled[j];
+                shuffled[j] = swap;
+            }
+
+            BenchmarkRunner.run("sort:ResizingArray:n=" + size, size, new FilledArrayWorkload(shuffled) {
+                public int run() {
+                    array.sort(null);
+                    return array.size();
+                }
+            });
+
+            BenchmarkRunner.run("parallelSort:ResizingArray:n=" + size, size, new FilledArrayWorkload(shuffled) {
+                public int run() {
+                    array.parallelSort(null);
+                    return array.size();
+                }
+            });
+
+            Long[] lookups = new Long[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) lookups[i] = shuffled[random.nextInt(size)];
+
+            ResizingArray<Long> sorted = new ResizingArray<>(size);
+            sorted.addAll(shuffled);
+            sorted.sort(null);
+
+            BenchmarkRunner.run("indexOf:ResizingArray:n=" + size, LOOKUPS, () -> {
+                int found = 0;
+                for (Long key : lookups) found += boxed.indexOf(key);
+                return found;
+            });
+
+            BenchmarkRunner.run("binarySearch:ResizingArray:n=" + size, LOOKUPS, () -> {
+                int found = 0;
+                for (Long key : lookups) found += sorted.binarySearch(key, null);
+                return found;
+            });
+        }
+    }
+
+    // refills a ResizingArray with the elements before every run
+    abstract static class FilledArrayWorkload implements BenchmarkRunner.Workload {
+
+        private final Long[] elements;
+        ResizingArray<Long> array;
+
+        FilledArrayWorkload(Long[] elements) {
+            this.elements = elements;
+        }
+
+        public void setup() {
+            array = new ResizingArray<>(elements.length);
+            array.addAll(elements);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+*   Startup cost of an off-heap table: building it again by inserting every key against mapping
+*   a snapshot of it taken with save().
+*
+*       rebuild         n insertions into a new table
+*       reload          mapping the snapshot, reported per table (ops = 1)
+*       reloadAndGet    mapping the snapshot then a get of every key, which reads every page
+*       firstInsert     mapping the snapshot then one insertion, which copies the cells
+*
+*   The snapshot is read from the page cache after the first iteration, so reloadAndGet shows
+*   the cost of a warm file. A cold start adds the time to read the file from disk.
+* */
+
+public class SnapshotBenchmark {
+
+    private static final double LOAD_FACTOR = 0.65;
+
+    interface Loader {
+        OffHeapLongLongHashTable load(Path snapshot) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        BenchmarkRunner.header();
+
+        for (int size : BenchmarkRunner.sizes(100_000, 1_000_000)) {
+            Integer[] boxedKeys = KeyDistribution.UNIFORM.keys(size);
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) keys[i] = boxedKeys[i];
+
+            run("OFF_HEAP_LINEAR_PROBING", () -> new OffHeapLongLongHashTableLinearProbing(8, LOAD_FACTOR),
+                    OffHeapLongLongHashTableLinearProbing::new, keys);
+            run("OFF_HEAP_QUADRATIC_PROBING", () -> new OffHeapLongLongHashTableQuadraticProbing(8, LOAD_FACTOR),
+                    OffHeapLongLongHashTableQuadraticProbing::new, keys);
+        }
+    }
+
+    static void run(String name, PrimitiveHashTableBenchmark.Factory<OffHeapLongLongHashTable> factory,
+                    Loader loader, long[] keys) throws IOException {
+        String params = name + ":n=" + keys.length;
+
+        BenchmarkRunner.run("rebuild:" + params, keys.length, () -> {
+            try (OffHeapLongLongHashTable table = factory.create()) {
+                for (long key : keys) table.insert(key, key);
+                return table.size();
+            }
+        });
+
+        Path snapshot = Files.createTempFile("hashtable", ".snapshot");
+        try {
+            try (OffHeapLongLongHashTable table = factory.create()) {
+                for (long key : keys) table.insert(key, key);
+                table.save(snapshot);
+            }
+
+            BenchmarkRunner.run("reload:" + params, 1, () -> {
+                try (OffHeapLongLongHashTable table = load(loader, snapshot)) {
+                    return table.size();
+                }
+            });
+
+            BenchmarkRunner.run("reloadAndGet:" + params, keys.length, () -> {
+                try (OffHeapLongLongHashTable table = load(loader, snapshot)) {
+                    long sum = 0;
+                    for (long key : keys) sum += table.get(key);
+                    return (int) sum;
+                }
+            });
+
+            BenchmarkRunner.run("firstInsert:" + params, 1, () -> {
+                try (OffHeapLongLongHashTable table = load(loader, snapshot)) {
+                    return (int) table.insert(-1L, 1L) + table.size();
+                }
+            });
+        } finally {
+            Files.delete(snapshot);
+        }
+    }
+
+    static OffHeapLongLongHashTable load(Loader loader, Path snapshot) {
+        try {
+            return loader.load(snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
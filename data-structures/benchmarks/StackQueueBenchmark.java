@@ -0,0 +1,55 @@
+/*
+*   push/pop benchmarks for both stacks and enqueue/dequeue benchmarks for both queues.
+*
+*   Each invocation pushes n elements and then pops all of them, so the measure includes
+*   the growing and the shrinking of the resizing array versions.
+* */
+
+public class StackQueueBenchmark {
+
+    static Integer[] elements(int n) {
+        Integer[] elements = new Integer[n];
+        for (int i = 0; i < n; i++) elements[i] = i;
+        return elements;
+    }
+
+    public static void main(String[] args) {
+        BenchmarkRunner.header();
+
+        for (int size : BenchmarkRunner.sizes(1_000, 100_000, 1_000_000)) {
+            Integer[] elements = elements(size);
+
+            BenchmarkRunner.run("pushPop:Stack:n=" + size, 2 * size, () -> {
+                Stack<Integer> stack = new Stack<>(-1);
+                for (Integer element : elements) stack.push(element);
+                int sum = 0;
+                while (!stack.isEmpty()) sum += stack.pop();
+                return sum;
+            });
+
+            BenchmarkRunner.run("pushPop:StackResizingArray:n=" + size, 2 * size, () -> {
+                StackResizingArray<Integer> stack = new StackResizingArray<>();
+                for (Integer element : elements) stack.push(element);
+                int sum = 0;
+                while (!stack.isEmpty()) sum += stack.pop();
+                return sum;
+            });
+
+            BenchmarkRunner.run("enqueueDequeue:Queue:n=" + size, 2 * size, () -> {
+                Queue<Integer> queue = new Queue<>();
+                for (Integer element : elements) queue.enqueue(element);
+                int sum = 0;
+                while (!queue.isEmpty()) sum += queue.dequeue();
+                return sum;
+            });
+
+            BenchmarkRunner.run("enqueueDequeue:QueueResizingArray:n=" + size, 2 * size, () -> {
+                QueueResizingArray<Integer> queue = new QueueResizingArray<>();
+                for (Integer element : elements) queue.enqueue(element);
+                int sum = 0;
+                while (!queue.isEmpty()) sum += queue.dequeue();
+                return sum;
+            });
+        }
+    }
+}
@@ -0,0 +1,43 @@
+import java.util.Random;
+
+/*
+*   union/find benchmarks for the weighted quick union with path compression.
+* */
+
+public class UnionFindBenchmark {
+
+    public static void main(String[] args) {
+        BenchmarkRunner.header();
+
+        for (int size : BenchmarkRunner.sizes(1_000, 100_000, 1_000_000)) {
+            int[] first = new int[size];
+            int[] second = new int[size];
+            Random random = new Random(size);
+            for (int i = 0; i < size; i++) {
+                first[i] = random.nextInt(size);
+                second[i] = random.nextInt(size);
+            }
+
+            BenchmarkRunner.run("union:n=" + size, size, () -> {
+                UnionFind uf = new UnionFind(size);
+                for (int i = 0; i < size; i++) uf.union(first[i], second[i]);
+                return uf.components();
+            });
+
+            BenchmarkRunner.run("find:n=" + size, size, new BenchmarkRunner.Workload() {
+                UnionFind uf;
+
+                public void setup() {
+                    uf = new UnionFind(size);
+                    for (int i = 0; i < size / 2; i++) uf.union(first[i], second[i]);
+                }
+
+                public int run() {
+                    int connected = 0;
+                    for (int i = 0; i < size; i++) if (uf.connected(first[i], second[i])) connected++;
+                    return connected;
+                }
+            });
+        }
+    }
+}
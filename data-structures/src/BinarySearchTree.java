@@ -1,7 +1,10 @@
 import javax.imageio.ImageTranscoder;
 import java.util.ArrayDeque;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 public class BinarySearchTree <T extends Comparable<T>> {
 
@@ -271,6 +274,92 @@ public class BinarySearchTree <T extends Comparable<T>> {
         };
     }
 
+    // In-order spliterator. Parts are split at subtree boundaries, so the count of the subtree
+    // roots gives the exact size of every part. A part is a node followed by a whole subtree;
+    // splitting it leaves the node and the left subtree of the subtree root to the prefix and
+    // keeps the root and its right subtree. A balanced tree is split in halves, a degenerate one
+    // only sheds a node at a time.
+    public Spliterator<T> spliterator() {
+        return new InOrderSpliterator(null, root);
+    }
+
+    private final class InOrderSpliterator implements Spliterator<T> {
+
+        // node that comes before the subtree, may be null
+        private Node first;
+        private Node subtree;
+        // in-order traversal of the subtree, created by the first tryAdvance
+        private Deque<Node> stack;
+
+        InOrderSpliterator(Node first, Node subtree) {
+            this.first = first;
+            this.subtree = subtree;
+        }
+
+        private void pushLeftSpine(Node x) {
+            for (; x != null; x = x.left) stack.addFirst(x);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (stack == null) {
+                stack = new ArrayDeque<>();
+                pushLeftSpine(subtree);
+            }
+
+            Node node;
+            if (first != null) {
+                node = first;
+                first = null;
+            } else if (!stack.isEmpty()) {
+                node = stack.removeFirst();
+                pushLeftSpine(node.right);
+            } else return false;
+
+            action.accept(node.value);
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            // once the traversal has begun the part can't be described by a subtree anymore
+            if (stack != null || subtree == null) return null;
+
+            // a prefix made of the first node and the left subtree, unless both are empty
+            while (first == null && subtree.left == null) {
+                first = subtree;
+                subtree = subtree.right;
+                if (subtree == null) return null;
+            }
+
+            InOrderSpliterator prefix = new InOrderSpliterator(first, subtree.left);
+            first = subtree;
+            subtree = subtree.right;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            if (stack == null) return (first == null ? 0 : 1) + size(subtree);
+
+            long size = (first == null) ? 0 : 1;
+            for (Node node : stack) size += 1 + size(node.right);
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL
+                    | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        // sorted in the natural order of the values
+        @Override
+        public Comparator<? super T> getComparator() {
+            return null;
+        }
+    }
+
     // ------------------------------------- helper methods and in-order ops -------------------------------------------
 
     // get the min node from a root node x
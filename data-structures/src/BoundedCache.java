@@ -0,0 +1,376 @@
+import java.util.concurrent.TimeUnit;
+
+/*
+*   Base class for the bounded caches: a HashTableSC index from the keys to the nodes of the
+*   cached entries, and doubly linked lists of those nodes kept in access order by the eviction
+*   policy of the subclass (LruCache, TinyLfuCache).
+*
+*   Every entry has a weight, 1 unless a Weigher is given, and the cache evicts entries when
+*   the total weight goes over the maximum. The nodes are linked in place, as in
+*   DoublyLinkedList, so moving an entry on a hit and evicting one are O(1) with no allocation.
+*   An entry heavier than the whole cache is not stored, it's evicted right away.
+*
+*   An entry can also be given a time to live. The entries with one are kept in a TimerWheel:
+*   an expired entry is treated as missing by get() and removed by it, and every put() or
+*   remove() removes a batch of the entries the wheel found expired, so the ones that are
+*   never read again don't stay in the cache. Use Long.MAX_VALUE as maximum weight for a cache
+*   bounded by time only.
+*
+*   Hits, misses and evictions are counted, see stats(). Like the hash tables, the caches are
+*   not thread safe.
+* */
+
+public abstract class BoundedCache<Key, Value> {
+
+    // weight of an entry, counted against the maximum weight of the cache
+    public interface Weigher<Key, Value> {
+        int weigh(Key key, Value value);
+    }
+
+    // called with the entries removed to make room or because they expired, not with the
+    // ones removed by remove() or clear() or replaced by put(). It must not modify the cache
+    public interface EvictionListener<Key, Value> {
+        void onEviction(Key key, Value value);
+    }
+
+    // a cached entry, linked in one of the access order lists of the policy
+    protected static final class Node<Key, Value> {
+
+        final Key key;
+        Value value;
+        int weight;
+        // spread hash code of the key, used by the policies that hash the keys again
+        final int hash;
+
+        Node<Key, Value> prev, next;
+        // list holding the node
+        AccessOrderList<Key, Value> list;
+
+        // expiration time in System.nanoTime() terms, only set while the node is in the
+        // timer wheel, which links it with timePrev and timeNext
+        long expiresAt;
+        Node<Key, Value> timePrev, timeNext;
+
+        Node(Key key, Value value, int weight, int hash) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.hash = hash;
+        }
+    }
+
+    // doubly linked list of nodes from the least to the most recently used one,
+    // along with the total weight of its nodes
+    protected static final class AccessOrderList<Key, Value> {
+
+        private Node<Key, Value> head, tail;
+        private long weight;
+
+        Node<Key, Value> first() {
+            return head;
+        }
+
+        long weight() {
+            return weight;
+        }
+
+        boolean isEmpty() {
+            return head == null;
+        }
+
+        // O(1)
+        void addLast(Node<Key, Value> node) {
+            node.list = this;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) head = node;
+            else tail.next = node;
+            tail = node;
+            weight += node.weight;
+        }
+
+        // O(1)
+        void remove(Node<Key, Value> node) {
+            if (node.prev == null) head = node.next;
+            else node.prev.next = node.next;
+            if (node.next == null) tail = node.prev;
+            else node.next.prev = node.prev;
+
+            node.prev = node.next = null;
+            node.list = null;
+            weight -= node.weight;
+        }
+
+        // O(1)
+        void moveToLast(Node<Key, Value> node) {
+            if (node == tail) return;
+            remove(node);
+            addLast(node);
+        }
+
+        // the weight of a node of the list changed from oldWeight to node.weight
+        void reweigh(Node<Key, Value> node, int oldWeight) {
+            weight += node.weight - oldWeight;
+        }
+
+        void clear() {
+            head = tail = null;
+            weight = 0;
+        }
+    }
+
+    private final HashTableSC<Key, Node<Key, Value>> index = new HashTableSC<>();
+
+    protected final long maximumWeight;
+    // total weight of the cached entries
+    protected long weightedSize;
+
+    // null for caches bounded by the number of entries
+    private final Weigher<? super Key, ? super Value> weigher;
+    private final EvictionListener<? super Key, ? super Value> evictionListener;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long evictionWeight;
+    private long expirationCount;
+
+    // expired entries removed by every write
+    private static final int EXPIRATION_BATCH = 16;
+
+    // created by the first put() with a time to live
+    private TimerWheel<Key, Value> timerWheel;
+
+    protected BoundedCache(long maximumWeight, Weigher<? super Key, ? super Value> weigher,
+                           EvictionListener<? super Key, ? super Value> evictionListener) {
+        if (maximumWeight <= 0) throw new IllegalArgumentException("Illegal maximum weight");
+
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+    }
+
+    // a new entry was stored, the policy links it to one of its lists
+    protected abstract void onInsert(Node<Key, Value> node);
+
+    // the entry was read or its value replaced
+    protected abstract void onAccess(Node<Key, Value> node);
+
+    // a lookup didn't find the key
+    protected void onMiss(int hash) {}
+
+    // called after every write, evicts entries until the weighted size fits again
+    protected abstract void evictIfNeeded();
+
+    // the entries were all removed, the policy empties its lists
+    protected abstract void onClear();
+
+    // number of cached entries
+    public int size() {
+        return index.size();
+    }
+
+    public boolean isEmpty() {
+        return index.size() == 0;
+    }
+
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    public long maximumWeight() {
+        return maximumWeight;
+    }
+
+    // true if the key is cached and not expired, it doesn't count as an access
+    public boolean hasKey(Key key) {
+        if (key == null) return false;
+
+        Node<Key, Value> node = index.get(key);
+        return node != null && !hasExpired(node);
+    }
+
+    // return the cached value of the key, or null if it's not cached
+    public Value get(Key key) {
+        if (key == null) return null;
+
+        Node<Key, Value> node = index.get(key);
+        if (node != null && hasExpired(node)) {
+            expire(node);
+            node = null;
+        }
+
+        if (node == null) {
+            missCount++;
+            onMiss(Hashing.spread(key.hashCode()));
+            return null;
+        }
+
+        hitCount++;
+        onAccess(node);
+        return node.value;
+    }
+
+    // cache a value for the key, evicting entries if the cache goes over its maximum weight.
+    // returns the value previously cached for the key, or null. The entry doesn't expire
+    public Value put(Key key, Value value) {
+        return put(key, value, 0);
+    }
+
+    // same as put(key, value), but the entry expires after the given time
+    public Value put(Key key, Value value, long timeToLive, TimeUnit unit) {
+        if (timeToLive <= 0) throw new IllegalArgumentException("Illegal time to live");
+
+        if (timerWheel == null) timerWheel = new TimerWheel<>(currentTime());
+
+        // saturated so that the expiration time doesn't overflow
+        return put(key, value, Math.min(unit.toNanos(timeToLive), Long.MAX_VALUE >> 1));
+    }
+
+    // timeToLive is in nanoseconds, 0 for an entry that doesn't expire
+    private Value put(Key key, Value value, long timeToLive) {
+        if (key == null) throw new IllegalArgumentException("Null Key");
+        if (value == null) throw new IllegalArgumentException("Null Value");
+
+        expireEntries();
+
+        int weight = weigh(key, value);
+        Node<Key, Value> node = index.get(key);
+        if (node != null && hasExpired(node)) {
+            expire(node);
+            node = null;
+        }
+
+        if (weight > maximumWeight) {
+            // it would evict everything else and then itself
+            Value oldValue = node == null ? null : removeNode(node);
+            evicted(key, value, weight);
+            return oldValue;
+        }
+
+        if (node == null) {
+            node = new Node<>(key, value, weight, Hashing.spread(key.hashCode()));
+            index.add(key, node);
+            weightedSize += weight;
+            setExpiration(node, timeToLive);
+            onInsert(node);
+            evictIfNeeded();
+            return null;
+        }
+
+        Value oldValue = node.value;
+        int oldWeight = node.weight;
+        node.value = value;
+        node.weight = weight;
+        node.list.reweigh(node, oldWeight);
+        weightedSize += weight - oldWeight;
+        setExpiration(node, timeToLive);
+
+        onAccess(node);
+        evictIfNeeded();
+        return oldValue;
+    }
+
+    // remove the key from the cache, returns its value or null if it wasn't cached
+    public Value remove(Key key) {
+        if (key == null) return null;
+
+        expireEntries();
+
+        Node<Key, Value> node = index.get(key);
+        if (node == null) return null;
+        if (hasExpired(node)) {
+            expire(node);
+            return null;
+        }
+        return removeNode(node);
+    }
+
+    // removes every entry, without notifying the eviction listener
+    public void clear() {
+        index.clear();
+        weightedSize = 0;
+        if (timerWheel != null) timerWheel.clear();
+        onClear();
+    }
+
+    // remove all the expired entries now instead of a batch per write
+    public void cleanUp() {
+        if (timerWheel == null) return;
+
+        timerWheel.advance(currentTime());
+        timerWheel.expireCurrentTick();
+        for (Node<Key, Value> node = timerWheel.pollExpired(); node != null; node = timerWheel.pollExpired())
+            expire(node);
+    }
+
+    // time used for the expirations, in nanoseconds
+    protected long currentTime() {
+        return System.nanoTime();
+    }
+
+    // the entries without a time to live are not in the wheel and never expire,
+    // so a cache that doesn't use expiration never reads the clock
+    private boolean hasExpired(Node<Key, Value> node) {
+        return TimerWheel.isScheduled(node) && node.expiresAt - currentTime() <= 0;
+    }
+
+    private void setExpiration(Node<Key, Value> node, long timeToLive) {
+        if (TimerWheel.isScheduled(node)) TimerWheel.unschedule(node);
+        if (timeToLive == 0) return;
+
+        node.expiresAt = currentTime() + timeToLive;
+        timerWheel.schedule(node);
+    }
+
+    // called by every write, moves the timer wheel to the current time and removes a
+    // batch of the expired entries it collected
+    private void expireEntries() {
+        if (timerWheel == null) return;
+
+        timerWheel.advance(currentTime());
+        for (int i = 0; i < EXPIRATION_BATCH; i++) {
+            Node<Key, Value> node = timerWheel.pollExpired();
+            if (node == null) break;
+            expire(node);
+        }
+    }
+
+    private void expire(Node<Key, Value> node) {
+        removeNode(node);
+        expirationCount++;
+        if (evictionListener != null) evictionListener.onEviction(node.key, node.value);
+    }
+
+    // evict a cached entry to make room
+    protected void evict(Node<Key, Value> node) {
+        removeNode(node);
+        evicted(node.key, node.value, node.weight);
+    }
+
+    private Value removeNode(Node<Key, Value> node) {
+        if (TimerWheel.isScheduled(node)) TimerWheel.unschedule(node);
+        index.remove(node.key);
+        node.list.remove(node);
+        weightedSize -= node.weight;
+        return node.value;
+    }
+
+    private void evicted(Key key, Value value, int weight) {
+        evictionCount++;
+        evictionWeight += weight;
+        if (evictionListener != null) evictionListener.onEviction(key, value);
+    }
+
+    private int weigh(Key key, Value value) {
+        if (weigher == null) return 1;
+
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) throw new IllegalArgumentException("Negative weight");
+        return weight;
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hitCount, missCount, evictionCount, evictionWeight, expirationCount);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+*   Snapshot of the counters of a bounded cache, returned by BoundedCache.stats().
+*
+*   A request is a get(): a hit if the key was cached, a miss otherwise. put(), remove() and
+*   hasKey() aren't requests. The evictions are the entries removed to make room, including
+*   the ones heavier than the whole cache that were never stored. The expired entries are
+*   counted apart.
+* */
+
+public final class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long evictionWeight;
+    private final long expirationCount;
+
+    CacheStats(long hitCount, long missCount, long evictionCount, long evictionWeight, long expirationCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.evictionWeight = evictionWeight;
+        this.expirationCount = expirationCount;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    // fraction of the requests that were hits, 1 when there were no requests
+    public double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1 : (double) hitCount / requests;
+    }
+
+    public double missRate() {
+        long requests = requestCount();
+        return requests == 0 ? 0 : (double) missCount / requests;
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    // total weight of the evicted entries
+    public long evictionWeight() {
+        return evictionWeight;
+    }
+
+    // entries removed because their time to live ran out
+    public long expirationCount() {
+        return expirationCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount
+                + ", hitRate=" + String.format("%.4f", hitRate()) + ", evictionCount=" + evictionCount
+                + ", evictionWeight=" + evictionWeight + ", expirationCount=" + expirationCount + "}";
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * A lock-free concurrent hash-table using open addressing with linear probing as a collision
+ * resolution method.
+ */
+public class ConcurrentHashTableLinearProbing<Key, Value> extends ConcurrentHashTableOpenAddressingBase<Key, Value> {
+
+    // This is the linear constant used in the linear probing, it must be odd so
+    // that GCD(capacity, LINEAR_CONSTANT) = 1 with a power of two capacity
+    private static final int LINEAR_CONSTANT = 1;
+
+    public ConcurrentHashTableLinearProbing() {
+        super();
+    }
+
+    public ConcurrentHashTableLinearProbing(int capacity) {
+        super(capacity);
+    }
+
+    public ConcurrentHashTableLinearProbing(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+    }
+
+    @Override
+    protected int probe(int x) {
+        return x * LINEAR_CONSTANT;
+    }
+
+}
@@ -0,0 +1,524 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+*   Base class for lock-free concurrent hashtables with an open addressing collision resolution
+*   method. Subclasses only dictate how the probing occurs through probe(x), the capacity is
+*   always a power of two since indexes are computed with a mask.
+*
+*   Keys and values live interleaved in a single array (key of cell i at 2i, value at 2i + 1)
+*   and every cell is read and updated through a VarHandle, with CAS for the updates:
+*
+*   - A key cell goes from null to a key exactly once and is never cleared, so a probe sequence
+*     is never broken and readers don't need any lock or retry. Removing an entry swaps its
+*     value with TOMBSTONE, a later insertion of the same key reuses the cell, and the cells
+*     whose value is a tombstone are dropped the next time the table is rebuilt.
+*   - Resizing allocates the next table and migrates the cells to it. Every thread writing to
+*     the table while a migration is in progress first helps by migrating a chunk of cells.
+*     A cell is migrated by freezing its value (wrapping it in a Frozen box with a CAS), copying
+*     it to the next table unless a newer value is there already, and finally marking it MOVED.
+*     Free key cells become MOVED_KEY so nobody claims them anymore. When every cell is
+*     migrated the next table replaces the current one.
+*   - The lookups never block and never write: a frozen value is still the current one, and a
+*     MOVED cell or a probe that misses while a migration is in progress continues in the
+*     next table.
+*
+*   Null keys and values are not allowed, null is what the lookups return for a missing key.
+*   size(), keys(), values() and the iterator are weakly consistent. The iterations (keys(),
+*   values(), toString(), the iterator and the clear() built on it) walk a single table, so
+*   they first finish a migration in progress, migrating the cells left like a writer does.
+* */
+
+@SuppressWarnings("unchecked")
+public abstract class ConcurrentHashTableOpenAddressingBase<Key, Value> implements Iterable<Key> {
+
+    // cell states besides null and the actual keys and values
+    private static final Object TOMBSTONE = new Object();
+    private static final Object MOVED = new Object();
+    private static final Object MOVED_KEY = new Object();
+
+    // a value being copied to the next table
+    private static final class Frozen {
+
+        final Object value;
+
+        Frozen(Object value) {
+            this.value = value;
+        }
+    }
+
+    // a generation of the hashtable
+    private static final class Table {
+
+        // key of the cell i at 2i, its value at 2i + 1
+        final Object[] cells;
+        final int capacity;
+        final int threshold;
+
+        // key cells claimed so far, including the ones whose value is a tombstone
+        final AtomicInteger usedBuckets = new AtomicInteger();
+
+        // table the cells are migrated to, set once
+        volatile Table next;
+        // first cell of the next chunk to migrate
+        final AtomicInteger migrationIndex = new AtomicInteger();
+        // cells whose migration is over
+        final AtomicInteger migratedCells = new AtomicInteger();
+
+        Table(int capacity, double loadFactor) {
+            this.capacity = capacity;
+            this.threshold = (int) (capacity * loadFactor);
+            this.cells = new Object[2 * capacity];
+        }
+    }
+
+    private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle TABLE;
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TABLE = lookup.findVarHandle(ConcurrentHashTableOpenAddressingBase.class, "table", Table.class);
+            NEXT = lookup.findVarHandle(Table.class, "next", Table.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // default hashtable parameters
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final double DEFAULT_LOAD_FACTOR = 0.65;
+    // largest capacity, the cells array holds two slots per cell
+    private static final int MAXIMUM_CAPACITY = Hashing.MAXIMUM_CAPACITY >> 1;
+
+    // cells migrated at once by a helping thread
+    private static final int MIGRATION_CHUNK = 64;
+
+    // used to set the maximum load factor of the hashtable
+    protected final double loadFactor;
+    // current table, replaced when a migration completes
+    private volatile Table table;
+    // number of keys, updated by the successful CAS of every insertion and removal
+    private final LongAdder keyCount = new LongAdder();
+
+    // constructors
+    protected ConcurrentHashTableOpenAddressingBase() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    protected ConcurrentHashTableOpenAddressingBase(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    protected ConcurrentHashTableOpenAddressingBase(int capacity, double loadFactor) {
+        if (capacity <= 0) throw new IllegalArgumentException("Illegal capacity: " + capacity);
+
+        if (loadFactor <= 0 || loadFactor >= 1 || Double.isNaN(loadFactor))
+            throw new IllegalArgumentException("Illegal loadFactor: " + loadFactor);
+
+        this.loadFactor = loadFactor;
+        this.table = new Table(Math.min(MAXIMUM_CAPACITY, Hashing.tableSizeFor(Math.max(DEFAULT_CAPACITY, capacity))), loadFactor);
+    }
+
+    // the actual method to do the probing, it must visit every cell of a power of two table
+    protected abstract int probe(int x);
+
+    // ----------------------------------------- cell access -------------------------------------------
+
+    private static Object keyAt(Table table, int i) {
+        return CELLS.getAcquire(table.cells, 2 * i);
+    }
+
+    private static Object valueAt(Table table, int i) {
+        return CELLS.getAcquire(table.cells, 2 * i + 1);
+    }
+
+    private static boolean casKey(Table table, int i, Object expected, Object key) {
+        return CELLS.compareAndSet(table.cells, 2 * i, expected, key);
+    }
+
+    private static boolean casValue(Table table, int i, Object expected, Object value) {
+        return CELLS.compareAndSet(table.cells, 2 * i + 1, expected, value);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    // returns the number of keys currently inside the hashtable
+    public int size() {
+        return (int) Math.max(0, Math.min(keyCount.sum(), Integer.MAX_VALUE));
+    }
+
+    // return the capacity of the hashtable
+    public int getCapacity() {
+        return table.capacity;
+    }
+
+    // return true/false depending on whether the hashtable is empty
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // returns true/false on whether a given key exists within the hashtable
+    public boolean hasKey(Key key) {
+        return get(key) != null;
+    }
+
+    // Get the value associated with the input key, or null if the key does not exists
+    public Value get(Key key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+
+        final int hash = Hashing.spread(key.hashCode());
+
+        for (Table t = table; t != null; t = t.next) {
+            final int mask = t.capacity - 1, offset = hash & mask;
+
+            for (int i = offset, x = 1; x <= t.capacity; i = (offset + probe(x++)) & mask) {
+                Object k = keyAt(t, i);
+
+                // a free or a killed cell ends the probe sequence of this table
+                if (k == null || k == MOVED_KEY) break;
+
+                if (k == key || k.equals(key)) {
+                    Object v = valueAt(t, i);
+
+                    if (v instanceof Frozen) return (Value) ((Frozen) v).value;
+                    if (v == MOVED) break;
+                    return (v == null || v == TOMBSTONE) ? null : (Value) v;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    // Place a key-value pair into the hash-table. If the key already exists
+    // then the value is updated. Returns the previous value or null.
+    public Value insert(Key key, Value value) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        if (value == null) throw new IllegalArgumentException("Null value");
+
+        return update(key, value, false);
+    }
+
+    // Place a key-value pair into the hash-table only if the key does not exist.
+    // Returns null if it was placed, or the current value of the key otherwise.
+    public Value putIfAbsent(Key key, Value value) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        if (value == null) throw new IllegalArgumentException("Null value");
+
+        return update(key, value, true);
+    }
+
+    // Removes a key from the map and returns the value, or null if the key does not exists.
+    public Value remove(Key key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+
+        return update(key, TOMBSTONE, false);
+    }
+
+    // the insertions and the removal (newValue == TOMBSTONE) share the same probing:
+    // find the cell of the key claiming a free one if needed, and CAS its value.
+    // if the table is being migrated the cell is migrated first and the update is
+    // done in the next table.
+    private Value update(Key key, Object newValue, boolean onlyIfAbsent) {
+        final int hash = Hashing.spread(key.hashCode());
+        final boolean removal = newValue == TOMBSTONE;
+
+        Table t = table;
+
+        retry:
+        while (true) {
+            // the key may still be in this table, so the probing starts here
+            // even when a resize has just been started
+            if (t.next == null && t.usedBuckets.get() >= t.threshold && !removal) resize(t);
+            else if (t.next != null) helpMigration(t);
+
+            final int mask = t.capacity - 1, offset = hash & mask;
+            int i = offset;
+
+            for (int x = 1 ;; i = (offset + probe(x++)) & mask) {
+                // the probe sequence is exhausted, the key can only be in a larger table
+                if (x > t.capacity) {
+                    if (t.next != null) t = t.next;
+                    else if (removal) return null;
+                    else t = resize(t);
+                    continue retry;
+                }
+
+                Object k = keyAt(t, i);
+
+                if (k == null) {
+                    // nothing to remove in this table
+                    if (removal) {
+                        if (t.next == null) return null;
+                        t = t.next;
+                        continue retry;
+                    }
+
+                    if (casKey(t, i, null, key)) {
+                        t.usedBuckets.incrementAndGet();
+                        break;
+                    }
+                    k = keyAt(t, i);
+                }
+
+                // the cell was killed by a migration, the key belongs to the next table
+                if (k == MOVED_KEY) {
+                    t = t.next;
+                    continue retry;
+                }
+
+                if (k == key || k.equals(key)) break;
+            }
+
+            // i is the cell of the key, the value is the one to update
+            // unless the table is being migrated
+            while (true) {
+                if (t.next != null) {
+                    migrateCell(t, i);
+                    t = t.next;
+                    continue retry;
+                }
+
+                Object v = valueAt(t, i);
+
+                // a migration started since the check above
+                if (v == MOVED || v instanceof Frozen) continue;
+
+                boolean present = v != null && v != TOMBSTONE;
+                if (onlyIfAbsent && present) return (Value) v;
+                if (removal && !present) return null;
+
+                if (casValue(t, i, v, newValue)) {
+                    if (removal) keyCount.decrement();
+                    else if (!present) keyCount.increment();
+
+                    return present ? (Value) v : null;
+                }
+            }
+        }
+    }
+
+    // starts the migration of a table, if it's not started yet, and returns the next table.
+    // the next table is twice as large unless most of the used cells are tombstones, in which
+    // case the table is just rebuilt without them. A table that can't grow anymore is full,
+    // rebuilding it at the same size wouldn't free any cell
+    private Table resize(Table t) {
+        // a table being filled by a migration is resized only once it is the current table
+        while (t.next == null && t != table) finishMigration(table);
+
+        Table next = t.next;
+        if (next == null) {
+            boolean grow = keyCount.sum() >= t.threshold / 2;
+            if (grow && t.capacity >= MAXIMUM_CAPACITY)
+                throw new IllegalStateException("Table full: can't grow past " + MAXIMUM_CAPACITY + " cells");
+
+            NEXT.compareAndSet(t, null, new Table(grow ? 2 * t.capacity : t.capacity, loadFactor));
+            next = t.next;
+        }
+
+        helpMigration(t);
+        return next;
+    }
+
+    // migrates a chunk of cells of a table whose migration is in progress
+    private void helpMigration(Table t) {
+        int start = t.migrationIndex.getAndAdd(MIGRATION_CHUNK);
+        int end = Math.min(t.capacity, start + MIGRATION_CHUNK);
+
+        for (int i = start; i < end; i++) migrateCell(t, i);
+    }
+
+    // migrates every cell of a table. Cells of chunks claimed by other threads are migrated
+    // too, since a stalled helper must not keep the migration from completing
+    private void finishMigration(Table t) {
+        while (t.migrationIndex.get() < t.capacity) helpMigration(t);
+        for (int i = 0; i < t.capacity && table == t; i++) migrateCell(t, i);
+    }
+
+    // moves the cell i of a table to the next one, when it returns the cell is migrated
+    private void migrateCell(Table t, int i) {
+        Object k = keyAt(t, i);
+
+        // kill the free key cells so that no one claims them anymore
+        while (k == null) {
+            if (casKey(t, i, null, MOVED_KEY)) {
+                cellMigrated(t);
+                return;
+            }
+            k = keyAt(t, i);
+        }
+        if (k == MOVED_KEY) return;
+
+        // freeze the value, a cell without value is directly moved
+        Object v = valueAt(t, i);
+        while (v != MOVED && !(v instanceof Frozen)) {
+            Object frozen = (v == null || v == TOMBSTONE) ? MOVED : new Frozen(v);
+
+            if (casValue(t, i, v, frozen)) {
+                if (frozen == MOVED) {
+                    cellMigrated(t);
+                    return;
+                }
+                v = frozen;
+            } else {
+                v = valueAt(t, i);
+            }
+        }
+        if (v == MOVED) return;
+
+        copyFrozenValue(t.next, (Key) k, ((Frozen) v).value);
+
+        if (casValue(t, i, v, MOVED)) cellMigrated(t);
+    }
+
+    // places a migrated entry in the next table. Nothing is written if the key already has a
+    // value there: it's either the same value copied by another helper, or a newer one written
+    // after the cell of the key was migrated
+    private void copyFrozenValue(Table next, Key key, Object value) {
+        final int hash = Hashing.spread(key.hashCode());
+        final int mask = next.capacity - 1, offset = hash & mask;
+
+        for (int i = offset, x = 1; x <= next.capacity; i = (offset + probe(x++)) & mask) {
+            Object k = keyAt(next, i);
+
+            if (k == null) {
+                if (casKey(next, i, null, key)) {
+                    next.usedBuckets.incrementAndGet();
+                    k = key;
+                } else {
+                    k = keyAt(next, i);
+                }
+            }
+
+            if (k == key || k.equals(key)) {
+                casValue(next, i, null, value);
+                return;
+            }
+        }
+
+        throw new IllegalStateException("No free cell to migrate the key " + key);
+    }
+
+    // counts a migrated cell, the last one makes the next table the current one
+    private void cellMigrated(Table t) {
+        if (t.migratedCells.incrementAndGet() == t.capacity)
+            TABLE.compareAndSet(this, t, t.next);
+    }
+
+    // clear the hashtable information, every key is removed on its own
+    // so concurrent insertions are never lost
+    public void clear() {
+        for (Key key : this) remove(key);
+    }
+
+    // returns the keys found in the hash table
+    public List<Key> keys() {
+        List<Key> hashtableKeys = new ArrayList<>(size());
+        for (Key key : this) hashtableKeys.add(key);
+        return hashtableKeys;
+    }
+
+    // returns a list of the values found in the hashtable, in the same order as keys()
+    public List<Value> values() {
+        List<Value> hashtableValues = new ArrayList<>(size());
+
+        for (Iterator<Object[]> entries = new EntryIterator(); entries.hasNext(); )
+            hashtableValues.add((Value) entries.next()[1]);
+
+        return hashtableValues;
+    }
+
+    // walks the cells of the current table, a migration in progress is completed first so
+    // that every entry is in a single table. The entries migrated during the walk are
+    // read from the newer tables
+    private class EntryIterator implements Iterator<Object[]> {
+
+        final Table t;
+        int index;
+        Object[] nextEntry;
+
+        EntryIterator() {
+            Table current;
+            while ((current = table).next != null) finishMigration(current);
+            t = current;
+            advance();
+        }
+
+        private void advance() {
+            nextEntry = null;
+
+            while (nextEntry == null && index < t.capacity) {
+                int i = index++;
+                Object k = keyAt(t, i);
+                if (k == null || k == MOVED_KEY) continue;
+
+                Object v = valueAt(t, i);
+                if (v instanceof Frozen) v = ((Frozen) v).value;
+                else if (v == MOVED) v = get((Key) k);
+
+                if (v != null && v != TOMBSTONE) nextEntry = new Object[] {k, v};
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextEntry != null;
+        }
+
+        @Override
+        public Object[] next() {
+            if (nextEntry == null) throw new NoSuchElementException();
+
+            Object[] entry = nextEntry;
+            advance();
+            return entry;
+        }
+    }
+
+    // return a string view of this hashtable
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("{");
+        for (Iterator<Object[]> entries = new EntryIterator(); entries.hasNext(); ) {
+            Object[] entry = entries.next();
+            sb.append(entry[0]).append(" => ").append(entry[1]).append(", ");
+        }
+
+        if (sb.length() > 2){
+            // Remove the trailing comma and space
+            sb.setLength(sb.length() - 2);
+        }
+        sb.append("}");
+
+        return sb.toString();
+    }
+
+    @Override
+    public Iterator<Key> iterator() {
+
+        return new Iterator<>() {
+
+            final Iterator<Object[]> entries = new EntryIterator();
+
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public Key next() {
+                return (Key) entries.next()[0];
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * A lock-free concurrent hash-table using open addressing with quadratic probing as a collision
+ * resolution method.
+ *
+ * The probing function is the same as in HashTableQuadraticProbing, f(x) = (x + x^2) / 2 over a
+ * power of two capacity, which visits every cell of the table without repetition.
+ */
+public class ConcurrentHashTableQuadraticProbing<Key, Value> extends ConcurrentHashTableOpenAddressingBase<Key, Value> {
+
+    public ConcurrentHashTableQuadraticProbing() {
+        super();
+    }
+
+    public ConcurrentHashTableQuadraticProbing(int capacity) {
+        super(capacity);
+    }
+
+    public ConcurrentHashTableQuadraticProbing(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+    }
+
+    @Override
+    protected int probe(int x) {
+        // Quadratic probing function (x^2+x)/2
+        return (x * x + x) >> 1;
+    }
+
+}
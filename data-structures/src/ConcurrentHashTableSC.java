@@ -0,0 +1,475 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/*
+*   Thread safe hash table with separate chaining and lock striping.
+*
+*   The table is split in segments, every segment is a small chained hash table with its own
+*   lock, bucket array, size and threshold. The high bits of the (spread) key hash select the
+*   segment and the low bits the bucket inside it, so writers of different segments never
+*   contend, and a segment that grows resizes under its own lock while the others keep working.
+*
+*   get() doesn't lock: bucket heads are read with acquire semantics through a VarHandle, chain
+*   links and values are volatile, and writers only publish fully built nodes. A resize copies
+*   the nodes into the new bucket array instead of relinking them, so a reader still walking the
+*   old array always sees complete chains.
+*
+*   size(), keys(), values() and the iterator are weakly consistent: they never fail because of
+*   concurrent updates, but may or may not reflect them. Null keys and values are not allowed,
+*   null is what the lookups return for a missing key.
+* */
+
+@SuppressWarnings("unchecked")
+public class ConcurrentHashTableSC<Key, Value> implements Iterable<Key> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = .75;
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private static final int MAXIMUM_SEGMENTS = 1 << 16;
+    private static final int MINIMUM_SEGMENT_CAPACITY = 2;
+
+    // acquire/release access to the bucket heads
+    private static final VarHandle BUCKETS = MethodHandles.arrayElementVarHandle(Node[].class);
+
+    // entry of a chain, the key and hash never change once the node is published
+    static final class Node<Key, Value> {
+
+        final int hash;
+        final Key key;
+        volatile Value value;
+        volatile Node<Key, Value> next;
+
+        Node(int hash, Key key, Value value, Node<Key, Value> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    // chained hash table guarded by its own monitor, every write happens while holding it
+    static final class Segment<Key, Value> {
+
+        volatile Node<Key, Value>[] table;
+        // number of entries, volatile so size() can read it without locking
+        volatile int count;
+        // table.length * max load factor
+        int threshold;
+
+        Segment(int capacity, double maxLoadFactor) {
+            table = newNodeArray(capacity);
+            threshold = (int) (capacity * maxLoadFactor);
+        }
+    }
+
+    // used to keep track of load factor, in order to manage segment resizing
+    private final double maxLoadFactor;
+    private final Segment<Key, Value>[] segments;
+    // the segment of a hash is (hash >>> segmentShift) & segmentMask
+    private final int segmentShift;
+    private final int segmentMask;
+
+    public ConcurrentHashTableSC() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentHashTableSC(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentHashTableSC(int capacity, double maxLoadFactor) {
+        this(capacity, maxLoadFactor, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    // the concurrency level is the expected number of threads writing at the same time,
+    // the table gets the next power of two of segments
+    public ConcurrentHashTableSC(int capacity, double maxLoadFactor, int concurrencyLevel) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Illegal Capacity");
+        if (maxLoadFactor <= 0 || Double.isNaN(maxLoadFactor) || Double.isInfinite(maxLoadFactor))
+            throw new IllegalArgumentException("Illegal load factor");
+        if (concurrencyLevel <= 0)
+            throw new IllegalArgumentException("Illegal concurrency level");
+
+        int segmentCount = Hashing.tableSizeFor(Math.min(concurrencyLevel, MAXIMUM_SEGMENTS));
+        int segmentCapacity = Math.max(MINIMUM_SEGMENT_CAPACITY,
+                Hashing.tableSizeFor((capacity + segmentCount - 1) / segmentCount));
+
+        this.maxLoadFactor = maxLoadFactor;
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        this.segmentMask = segmentCount - 1;
+
+        segments = newSegmentArray(segmentCount);
+        for (int i = 0; i < segmentCount; i++)
+            segments[i] = new Segment<>(segmentCapacity, maxLoadFactor);
+    }
+
+    // ---------------------------------------- bucket access ------------------------------------------
+
+    private static <Key, Value> Node<Key, Value> bucketHead(Node<Key, Value>[] table, int index) {
+        return (Node<Key, Value>) BUCKETS.getAcquire(table, index);
+    }
+
+    private static <Key, Value> void setBucketHead(Node<Key, Value>[] table, int index, Node<Key, Value> node) {
+        BUCKETS.setRelease(table, index, node);
+    }
+
+    // Java can't create arrays of a generic type, the node and segment arrays are created raw
+    // here and only here
+    @SuppressWarnings("rawtypes")
+    private static <Key, Value> Node<Key, Value>[] newNodeArray(int length) {
+        return new Node[length];
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static <Key, Value> Segment<Key, Value>[] newSegmentArray(int length) {
+        return new Segment[length];
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static int hash(Object key) {
+        return Hashing.spread(key.hashCode());
+    }
+
+    private Segment<Key, Value> segmentFor(int hash) {
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    // return the number of elements in the hash table
+    public int size() {
+        long size = 0;
+        for (Segment<Key, Value> segment : segments) size += segment.count;
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    // return if the hash table is empty
+    public boolean empty() {
+        for (Segment<Key, Value> segment : segments)
+            if (segment.count != 0) return false;
+        return true;
+    }
+
+    // clears al the contents of the hash table
+    public void clear() {
+        for (Segment<Key, Value> segment : segments) {
+            synchronized (segment) {
+                segment.table = newNodeArray(segment.table.length);
+                segment.count = 0;
+            }
+        }
+    }
+
+    // returns true depending on whether a key is in the hash table
+    public boolean hasKey(Key key) {
+        if (key == null) return false;
+
+        int hash = hash(key);
+        return seekNode(segmentFor(hash), hash, key) != null;
+    }
+
+    // finds the node of a key in the current table of a segment, otherwise returns null.
+    // it's safe to call it without holding the segment lock
+    private Node<Key, Value> seekNode(Segment<Key, Value> segment, int hash, Key key) {
+        Node<Key, Value>[] table = segment.table;
+
+        for (Node<Key, Value> node = bucketHead(table, hash & (table.length - 1)); node != null; node = node.next)
+            if (node.hash == hash && node.key.equals(key)) return node;
+
+        return null;
+    }
+
+    // return the stored value of the key provided, or null if the key doesn't exist
+    public Value get(Key key) {
+        if (key == null) return null;
+
+        int hash = hash(key);
+        Node<Key, Value> node = seekNode(segmentFor(hash), hash, key);
+        return node == null ? null : node.value;
+    }
+
+    // add a value to the hash table, if the key already exists update its value
+    // return null if there aren't previous value, or previous entry value if the data is updated
+    public Value add(Key key, Value value) {
+        checkEntry(key, value);
+
+        int hash = hash(key);
+        Segment<Key, Value> segment = segmentFor(hash);
+
+        synchronized (segment) {
+            Node<Key, Value> node = seekNode(segment, hash, key);
+            if (node == null) {
+                linkNode(segment, hash, key, value);
+                return null;
+            }
+
+            Value oldValue = node.value;
+            node.value = value;
+            return oldValue;
+        }
+    }
+
+    // add the entry only if the key doesn't exist yet
+    // return null if the entry was added, or the value already associated with the key
+    public Value putIfAbsent(Key key, Value value) {
+        checkEntry(key, value);
+
+        int hash = hash(key);
+        Segment<Key, Value> segment = segmentFor(hash);
+
+        synchronized (segment) {
+            Node<Key, Value> node = seekNode(segment, hash, key);
+            if (node != null) return node.value;
+
+            linkNode(segment, hash, key, value);
+            return null;
+        }
+    }
+
+    // return the value of the key, computing it with the mapping function and adding it when the
+    // key doesn't exist. Nothing is added if the function returns null. The function runs while
+    // holding the segment lock, so it must be short and must not update this table
+    public Value computeIfAbsent(Key key, Function<? super Key, ? extends Value> mappingFunction) {
+        if (key == null) throw new IllegalArgumentException("Null Key");
+        if (mappingFunction == null) throw new IllegalArgumentException("Null mapping function");
+
+        int hash = hash(key);
+        Segment<Key, Value> segment = segmentFor(hash);
+
+        // most calls find the key, look it up without locking first
+        Node<Key, Value> node = seekNode(segment, hash, key);
+        if (node != null) return node.value;
+
+        synchronized (segment) {
+            // the key may have been added since the unlocked lookup
+            node = seekNode(segment, hash, key);
+            if (node != null) return node.value;
+
+            Value value = mappingFunction.apply(key);
+            if (value != null) linkNode(segment, hash, key, value);
+            return value;
+        }
+    }
+
+    // add the value if the key doesn't exist, otherwise replace the current value with the result
+    // of the remapping function applied to it and the given value, removing the entry if the result
+    // is null. Return the new value of the key, or null if it was removed. The function runs while
+    // holding the segment lock, so it must be short and must not update this table
+    public Value merge(Key key, Value value, BiFunction<? super Value, ? super Value, ? extends Value> remappingFunction) {
+        checkEntry(key, value);
+        if (remappingFunction == null) throw new IllegalArgumentException("Null remapping function");
+
+        int hash = hash(key);
+        Segment<Key, Value> segment = segmentFor(hash);
+
+        synchronized (segment) {
+            Node<Key, Value> node = seekNode(segment, hash, key);
+            if (node == null) {
+                linkNode(segment, hash, key, value);
+                return value;
+            }
+
+            Value newValue = remappingFunction.apply(node.value, value);
+            if (newValue == null) unlinkNode(segment, hash, key);
+            else node.value = newValue;
+
+            return newValue;
+        }
+    }
+
+    // remove a entry from the table given a key
+    // return the value of the removed entry, or null if that entry not exists
+    public Value remove(Key key) {
+        if (key == null) return null;
+
+        int hash = hash(key);
+        Segment<Key, Value> segment = segmentFor(hash);
+
+        synchronized (segment) {
+            Node<Key, Value> node = unlinkNode(segment, hash, key);
+            return node == null ? null : node.value;
+        }
+    }
+
+    private static void checkEntry(Object key, Object value) {
+        if (key == null) throw new IllegalArgumentException("Null Key");
+        if (value == null) throw new IllegalArgumentException("Null Value");
+    }
+
+    // publish a new node at the head of its bucket, the caller holds the segment lock
+    private void linkNode(Segment<Key, Value> segment, int hash, Key key, Value value) {
+        Node<Key, Value>[] table = segment.table;
+        int bucketIndex = hash & (table.length - 1);
+
+        setBucketHead(table, bucketIndex, new Node<>(hash, key, value, bucketHead(table, bucketIndex)));
+
+        int count = segment.count + 1;
+        segment.count = count;
+        if (count > segment.threshold) resizeSegment(segment);
+    }
+
+    // unlink the node of a key from its chain and return it, or null if the key doesn't exist.
+    // the caller holds the segment lock. The removed node keeps its next link so readers
+    // standing on it can still walk the rest of the chain
+    private Node<Key, Value> unlinkNode(Segment<Key, Value> segment, int hash, Key key) {
+        Node<Key, Value>[] table = segment.table;
+        int bucketIndex = hash & (table.length - 1);
+
+        for (Node<Key, Value> node = bucketHead(table, bucketIndex), prev = null; node != null; prev = node, node = node.next) {
+            if (node.hash == hash && node.key.equals(key)) {
+                if (prev == null) setBucketHead(table, bucketIndex, node.next);
+                else prev.next = node.next;
+
+                segment.count = segment.count - 1;
+                return node;
+            }
+        }
+
+        return null;
+    }
+
+    // doubles the bucket array of a segment, the caller holds the segment lock.
+    // the nodes of the old array are never modified: the trailing run of every chain whose
+    // nodes all land in the same new bucket is shared, the nodes before it are copied
+    private void resizeSegment(Segment<Key, Value> segment) {
+        Node<Key, Value>[] oldTable = segment.table;
+        int oldCapacity = oldTable.length;
+
+        if (oldCapacity >= Hashing.MAXIMUM_CAPACITY) {
+            segment.threshold = Integer.MAX_VALUE;
+            return;
+        }
+
+        int capacity = oldCapacity * 2;
+        Node<Key, Value>[] table = newNodeArray(capacity);
+
+        for (int i = 0; i < oldCapacity; i++) {
+            Node<Key, Value> head = bucketHead(oldTable, i);
+            if (head == null) continue;
+
+            Node<Key, Value> lastRun = head;
+            int lastRunIndex = head.hash & (capacity - 1);
+            for (Node<Key, Value> node = head.next; node != null; node = node.next) {
+                int bucketIndex = node.hash & (capacity - 1);
+                if (bucketIndex != lastRunIndex) {
+                    lastRunIndex = bucketIndex;
+                    lastRun = node;
+                }
+            }
+            table[lastRunIndex] = lastRun;
+
+            for (Node<Key, Value> node = head; node != lastRun; node = node.next) {
+                int bucketIndex = node.hash & (capacity - 1);
+                table[bucketIndex] = new Node<>(node.hash, node.key, node.value, table[bucketIndex]);
+            }
+        }
+
+        segment.threshold = (int) (capacity * maxLoadFactor);
+        // the volatile write publishes the new array together with the nodes copied into it
+        segment.table = table;
+    }
+
+    // walks every node of every segment, following the arrays that were current when each
+    // segment was reached
+    private class NodeIterator implements Iterator<Node<Key, Value>> {
+
+        int segmentIndex, bucketIndex;
+        Node<Key, Value>[] table;
+        Node<Key, Value> nextNode;
+
+        NodeIterator() {
+            advance();
+        }
+
+        private void advance() {
+            if (nextNode != null) nextNode = nextNode.next;
+
+            while (nextNode == null) {
+                if (table == null || bucketIndex == table.length) {
+                    if (segmentIndex == segments.length) return;
+                    table = segments[segmentIndex++].table;
+                    bucketIndex = 0;
+                } else {
+                    nextNode = bucketHead(table, bucketIndex++);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+
+        @Override
+        public Node<Key, Value> next() {
+            if (nextNode == null) throw new NoSuchElementException();
+
+            Node<Key, Value> node = nextNode;
+            advance();
+            return node;
+        }
+    }
+
+    // return all the keys of the hash table
+    public List<Key> keys() {
+
+        List<Key> keys = new ArrayList<>(size());
+        for (Iterator<Node<Key, Value>> nodes = new NodeIterator(); nodes.hasNext(); )
+            keys.add(nodes.next().key);
+
+        return keys;
+    }
+
+    // return all the values within the hash table
+    public List<Value> values() {
+
+        List<Value> values = new ArrayList<>(size());
+        for (Iterator<Node<Key, Value>> nodes = new NodeIterator(); nodes.hasNext(); )
+            values.add(nodes.next().value);
+
+        return values;
+    }
+
+    @Override
+    public Iterator<Key> iterator() {
+
+        return new Iterator<>() {
+
+            final Iterator<Node<Key, Value>> nodes = new NodeIterator();
+
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public Key next() {
+                return nodes.next().key;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        for (Iterator<Node<Key, Value>> nodes = new NodeIterator(); nodes.hasNext(); ) {
+            Node<Key, Value> node = nodes.next();
+            sb.append(node.key).append(" => ").append(node.value).append(", ");
+        }
+
+        if (sb.length() > 2)
+            // Remove the trailing comma and space
+            sb.setLength(sb.length() - 2);
+
+        sb.append("}");
+        return sb.toString();
+    }
+}
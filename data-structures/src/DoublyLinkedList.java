@@ -1,4 +1,6 @@
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 public class DoublyLinkedList<T> implements Iterable<T> {
 
@@ -219,6 +221,14 @@ public class DoublyLinkedList<T> implements Iterable<T> {
         };
     }
 
+    // A list can't be split without walking it, so the parts split off are batches of
+    // the following nodes copied to an array, of growing size. The whole list and the
+    // batches know their exact size.
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,481 @@
+import java.util.Arrays;
+
+/**
+ * An implementation of a hash-table using bucketized cuckoo hashing.
+ *
+ * The cells are organized in buckets of 4, and two hash functions give every key two candidate
+ * buckets: the key is stored in one of their 8 cells or in a small stash, so a lookup inspects
+ * two buckets and the stash whatever the load of the table. The spread hash of every cell is
+ * kept in an int array next to the keys and compared first, so only the cells whose hash
+ * matches are compared with equals(), and a bucket of hashes (16 bytes) sits in one cache line.
+ *
+ * An insertion into two full buckets moves a key of one of them to its other bucket, which may
+ * move another key, and so on (a random walk). When that doesn't reach a free cell after
+ * MAX_KICKS moves, because of a cycle or a very full table, the key left without a cell goes
+ * to the stash. When the stash is full too the table is resized, unless it's less than half
+ * full: the walks then fail because many keys share their buckets (hashCode() giving them few
+ * distinct values), which no resize fixes. The stash is then doubled, up to MAX_STASH_SIZE,
+ * and once it's at that size the second hash function is reseeded, which gives new second
+ * buckets to the keys with different hash codes. The stash is scanned by the lookups that miss
+ * both buckets, so it's never larger than that: when reseeding doesn't make room either, the
+ * keys have equal hash codes and the insertion fails with an IllegalStateException, the
+ * table left as it was.
+ *
+ * The stash has its own arrays. The methods of the base class walking every key go through
+ * slotKey() and slotValue(), which are overridden to walk the stash after the cells.
+ */
+@SuppressWarnings("unchecked")
+public class HashTableCuckoo<Key, Value> extends HashTableOpenAddressingBase<Key, Value> {
+
+    // cells per bucket
+    private static final int BUCKET_SIZE = 4;
+    // keys that can be left without a cell before the table is resized, see place()
+    private static final int STASH_SIZE = 4;
+    // the stash is never grown past this size, see insert()
+    private static final int MAX_STASH_SIZE = 2 * STASH_SIZE;
+    // second hash functions tried by an insertion before it gives up, see insert()
+    private static final int MAX_RESEEDS = 4;
+    // keys moved by an insertion before it gives up and uses the stash
+    private static final int MAX_KICKS = 256;
+
+    // with two buckets of 4 cells per key the table fills up to ~95% before the
+    // insertions start failing, so the default load factor is higher than for probing
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.9;
+
+    // mixed into the hash for the second hash function, a reseed adds it to the seed
+    private static final int SECOND_HASH_SEED = 0x9E3779B9;
+
+    private int bucketMask;
+    private int secondHashSeed = SECOND_HASH_SEED;
+
+    // keys left without a cell, null for a free slot
+    private Key[] stashKeys;
+    private Value[] stashValues;
+    private int stashCount;
+
+    // cells taken by the moves of the current walk, to undo them if it fails
+    private final int[] kickPath = new int[MAX_KICKS];
+
+    // state of the generator picking the key to move
+    private int kickState = 0x2545F491;
+
+    public HashTableCuckoo() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashTableCuckoo(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashTableCuckoo(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+        allocateBuckets();
+    }
+
+    // the bucket mask and the stash of a table whose cell arrays have just been allocated
+    private void allocateBuckets() {
+        bucketMask = capacity / BUCKET_SIZE - 1;
+
+        stashKeys = (Key[]) new Object[STASH_SIZE];
+        stashValues = (Value[]) new Object[STASH_SIZE];
+        stashCount = 0;
+    }
+
+    // the buckets are visited directly, there is no probe sequence
+    @Override
+    protected void setupProbing(Key key, int hash) {}
+
+    @Override
+    protected int probe(int x) {
+        return x * BUCKET_SIZE;
+    }
+
+    // There are no deleted cells to drop here: a resize that isn't a shrink is asked by place()
+    // when the walks fail, rehashing into the same buckets would fail the same way
+    @Override
+    protected int nextCapacity() {
+        int next = super.nextCapacity();
+        return next == capacity ? doubledCapacity() : next;
+    }
+
+    // a power of two with at least two buckets
+    @Override
+    protected void adjustCapacity() {
+        capacity = Hashing.tableSizeFor(Math.max(2 * BUCKET_SIZE, capacity));
+    }
+
+    private int firstBucket(int hash) {
+        return hash & bucketMask;
+    }
+
+    private int secondBucket(int hash) {
+        return Hashing.spread(hash ^ secondHashSeed) & bucketMask;
+    }
+
+    // the bucket a key stored in the given bucket can be moved to
+    private int otherBucket(int hash, int bucket) {
+        int first = firstBucket(hash);
+        return bucket == first ? secondBucket(hash) : first;
+    }
+
+    // cell of the key in the given bucket, or -1
+    private int seekBucket(int bucket, Key key, int hash) {
+        for (int i = bucket * BUCKET_SIZE, end = i + BUCKET_SIZE; i < end; i++) {
+            if (hashes[i] == hash && keys[i] != null && keys[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    // first free cell of the given bucket, or -1
+    private int freeCell(int bucket) {
+        for (int i = bucket * BUCKET_SIZE, end = i + BUCKET_SIZE; i < end; i++) {
+            if (keys[i] == null) return i;
+        }
+        return -1;
+    }
+
+    // stash slot of the key, or -1
+    private int seekStash(Key key) {
+        if (stashCount == 0) return -1;
+
+        for (int i = 0; i < stashKeys.length; i++) {
+            if (stashKeys[i] != null && stashKeys[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    private void stash(Key key, Value value) {
+        for (int s = 0; ; s++) {
+            if (stashKeys[s] == null) {
+                stashKeys[s] = key;
+                stashValues[s] = value;
+                stashCount++;
+                return;
+            }
+        }
+    }
+
+    private void growStash() {
+        stashKeys = Arrays.copyOf(stashKeys, 2 * stashKeys.length);
+        stashValues = Arrays.copyOf(stashValues, 2 * stashValues.length);
+    }
+
+    private void setCell(int i, Key key, Value value, int hash) {
+        keys[i] = key;
+        values[i] = value;
+        hashes[i] = hash;
+    }
+
+    // picks one of the cells of a bucket (xorshift)
+    private int nextKick() {
+        kickState ^= kickState << 13;
+        kickState ^= kickState >>> 17;
+        kickState ^= kickState << 5;
+        return kickState & (BUCKET_SIZE - 1);
+    }
+
+    // Places a key that is not in the table into a free cell of its buckets, moving the keys in
+    // the way along a random walk of displacements, or into the stash. When the walk fails and
+    // the stash is full, the moves are undone and false is returned with the table unchanged.
+    private boolean place(Key key, Value value, int hash) {
+        int i = freeCell(firstBucket(hash));
+        if (i == -1) i = freeCell(secondBucket(hash));
+
+        if (i != -1) {
+            setCell(i, key, value, hash);
+            usedBuckets++;
+            return true;
+        }
+
+        int bucket = firstBucket(hash), kicks = 0;
+        while (kicks < MAX_KICKS) {
+            // take the cell of a key of the bucket, that key is the one to place now
+            int victim = bucket * BUCKET_SIZE + nextKick();
+            kickPath[kicks++] = victim;
+
+            Key victimKey = keys[victim];
+            Value victimValue = values[victim];
+            int victimHash = hashes[victim];
+            setCell(victim, key, value, hash);
+
+            key = victimKey;
+            value = victimValue;
+            hash = victimHash;
+            bucket = otherBucket(hash, bucket);
+
+            int free = freeCell(bucket);
+            if (free != -1) {
+                setCell(free, key, value, hash);
+                usedBuckets++;
+                return true;
+            }
+        }
+
+        if (stashCount < stashKeys.length) {
+            stash(key, value);
+            return true;
+        }
+
+        // every move swapped the key in hand with the one of a cell, swapping them back in
+        // the reverse order puts every key where it was and the first one in hand again
+        while (kicks > 0) {
+            int cell = kickPath[--kicks];
+
+            Key cellKey = keys[cell];
+            Value cellValue = values[cell];
+            int cellHash = hashes[cell];
+            setCell(cell, key, value, hash);
+
+            key = cellKey;
+            value = cellValue;
+            hash = cellHash;
+        }
+
+        return false;
+    }
+
+    // move the stashed keys that have a free cell in one of their buckets back to the cells
+    private void drainStash() {
+        for (int s = 0; s < stashKeys.length && stashCount > 0; s++) {
+            if (stashKeys[s] == null) continue;
+
+            int hash = Hashing.spread(stashKeys[s].hashCode());
+            int i = freeCell(firstBucket(hash));
+            if (i == -1) i = freeCell(secondBucket(hash));
+            if (i == -1) continue;
+
+            setCell(i, stashKeys[s], stashValues[s], hash);
+            usedBuckets++;
+            stashKeys[s] = null;
+            stashValues[s] = null;
+            stashCount--;
+        }
+    }
+
+    @Override
+    protected void resizeTable() {
+        increaseCapacity();
+        adjustCapacity();
+
+        // The keys fitted in the old arrays, they fit in these unless many of them collide in
+        // the new buckets too. After MAX_RESEEDS tries the stash grows past MAX_STASH_SIZE
+        // rather than losing a key, the next insertion needing the stash reseeds again.
+        if (!rehash(false) && !reseed()) rehash(true);
+    }
+
+    // Tries new second hash functions until the keys fit into the cells and the stash. Returns
+    // false, with the table and the hash function as they were, when none does.
+    private boolean reseed() {
+        int seed = secondHashSeed;
+
+        for (int i = 0; i < MAX_RESEEDS; i++) {
+            secondHashSeed += SECOND_HASH_SEED;
+            if (rehash(false)) {
+                modificationCount++;
+                return true;
+            }
+        }
+
+        secondHashSeed = seed;
+        return false;
+    }
+
+    // Places every key again into new arrays of the current capacity. When a key doesn't fit,
+    // the stash is grown for it if force is set, otherwise the old arrays are put back and
+    // false is returned.
+    private boolean rehash(boolean force) {
+        Key[] oldKeyTable = keys, oldStashKeys = stashKeys;
+        Value[] oldValueTable = values, oldStashValues = stashValues;
+        int[] oldHashTable = hashes;
+        int oldBucketMask = bucketMask, oldThreshold = threshold, oldUsedBuckets = usedBuckets, oldStashCount = stashCount;
+
+        threshold = (int) (capacity * loadFactor);
+        keys = (Key[]) new Object[capacity];
+        values = (Value[]) new Object[capacity];
+        hashes = new int[capacity];
+        allocateBuckets();
+
+        // the number of keys doesn't change, they're only placed again
+        usedBuckets = 0;
+
+        boolean placed = true;
+        for (int i = 0; i < oldKeyTable.length && placed; i++) {
+            if (oldKeyTable[i] != null) placed = rehashPlace(oldKeyTable[i], oldValueTable[i], oldHashTable[i], force);
+        }
+
+        for (int s = 0; s < oldStashKeys.length && placed; s++) {
+            if (oldStashKeys[s] != null)
+                placed = rehashPlace(oldStashKeys[s], oldStashValues[s], Hashing.spread(oldStashKeys[s].hashCode()), force);
+        }
+
+        if (!placed) {
+            keys = oldKeyTable;
+            values = oldValueTable;
+            hashes = oldHashTable;
+            stashKeys = oldStashKeys;
+            stashValues = oldStashValues;
+            bucketMask = oldBucketMask;
+            threshold = oldThreshold;
+            usedBuckets = oldUsedBuckets;
+            stashCount = oldStashCount;
+        }
+
+        return placed;
+    }
+
+    private boolean rehashPlace(Key key, Value value, int hash, boolean force) {
+        if (place(key, value, hash)) return true;
+        if (!force) return false;
+
+        growStash();
+        stash(key, value);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(hashes, 0);
+
+        stashKeys = (Key[]) new Object[STASH_SIZE];
+        stashValues = (Value[]) new Object[STASH_SIZE];
+        stashCount = 0;
+    }
+
+    // Place a key-value pair into the hash-table. If the value already exists
+    // then the value is updated.
+    @Override
+    public Value insert(Key key, Value value) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+
+        final int hash = Hashing.spread(key.hashCode());
+
+        int i = seekBucket(firstBucket(hash), key, hash);
+        if (i == -1) i = seekBucket(secondBucket(hash), key, hash);
+
+        if (i != -1) {
+            Value oldValue = values[i];
+            values[i] = value;
+            modificationCount++;
+            return oldValue;
+        }
+
+        int s = seekStash(key);
+        if (s != -1) {
+            Value oldValue = stashValues[s];
+            stashValues[s] = value;
+            modificationCount++;
+            return oldValue;
+        }
+
+        if (keyCount >= threshold) resize();
+
+        for (int reseeds = 0; !place(key, value, hash); ) {
+            // the walk failed with a full stash: grow the table if it's too full for the walks
+            // to end, otherwise many keys share their buckets, see the class comment
+            if (usedBuckets >= capacity / 2) resize();
+            else if (stashKeys.length < MAX_STASH_SIZE) growStash();
+            else if (reseeds++ == MAX_RESEEDS || !reseed())
+                throw new IllegalStateException("Too many keys with the same hash code, can't place " + key);
+        }
+
+        keyCount++;
+        modificationCount++;
+        return null;
+    }
+
+    // Get the value associated with the input key
+    // returns null if the value is null and also returns
+    // null if the key does not exists
+    @Override
+    public Value get(Key key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+
+        final int hash = Hashing.spread(key.hashCode());
+
+        int bucket = firstBucket(hash);
+        int i = seekBucket(bucket, key, hash);
+        if (i != -1) {
+            if (statsRecorder != null) statsRecorder.recordLookup(bucket * BUCKET_SIZE, 1);
+            return values[i];
+        }
+
+        bucket = secondBucket(hash);
+        i = seekBucket(bucket, key, hash);
+        if (statsRecorder != null) statsRecorder.recordLookup(bucket * BUCKET_SIZE, 2);
+        if (i != -1) return values[i];
+
+        int s = seekStash(key);
+        return s == -1 ? null : stashValues[s];
+    }
+
+    // Removes a key from the map and returns the value.
+    // NOTE: returns null if the value is null AND also returns
+    // null if the key does not exists.
+    @Override
+    public Value remove(Key key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+
+        final int hash = Hashing.spread(key.hashCode());
+
+        int i = seekBucket(firstBucket(hash), key, hash);
+        if (i == -1) i = seekBucket(secondBucket(hash), key, hash);
+
+        Value oldValue;
+        if (i != -1) {
+            oldValue = values[i];
+            setCell(i, null, null, 0);
+            usedBuckets--;
+
+            // the freed cell may be one a stashed key was waiting for
+            if (stashCount > 0) drainStash();
+        } else {
+            int s = seekStash(key);
+            if (s == -1) return null;
+
+            oldValue = stashValues[s];
+            stashKeys[s] = null;
+            stashValues[s] = null;
+            stashCount--;
+        }
+
+        keyCount--;
+        modificationCount++;
+        shrinkIfSparse();
+        return oldValue;
+    }
+
+    // number of buckets a lookup visits to reach the key stored at cell i, 1 or 2
+    @Override
+    protected int probeLength(int i) {
+        return i / BUCKET_SIZE == firstBucket(hashes[i]) ? 1 : 2;
+    }
+
+    // the slots of the stash follow the cells, see HashTableOpenAddressingBase.slotCount()
+    @Override
+    protected int slotCount() {
+        return capacity + stashKeys.length;
+    }
+
+    @Override
+    protected Key slotKey(int i) {
+        return (i < capacity) ? keys[i] : stashKeys[i - capacity];
+    }
+
+    @Override
+    protected Value slotValue(int i) {
+        return (i < capacity) ? values[i] : stashValues[i - capacity];
+    }
+
+    // the stash arrays are retained on top of the cells
+    @Override
+    protected long estimatedBytes() {
+        return super.estimatedBytes() + 2 * HashTableStats.referenceArrayBytes(stashKeys.length);
+    }
+
+    // number of keys waiting in the stash
+    public int stashSize() {
+        return stashCount;
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.function.ToIntFunction;
+
+/**
+ * An implementation of a hash-table using open addressing with double hashing as a collision
+ * resolution method.
+ *
+ * In this implementation we are using the following probing function: H(k, x) = h(k) + x * d(k)
+ * mod p
+ *
+ * Where h(k) is the hash for the given key, d(k) in [1, p) a step derived from a secondary hash
+ * of the key and p the capacity of the table, which is kept prime. Any step is then coprime
+ * with the capacity, so the probe sequence visits every cell. Keys colliding on their first
+ * cell have different steps, so they don't follow the same sequence as with linear probing
+ * (primary clustering) or quadratic probing (secondary clustering).
+ *
+ * The secondary hash can be given to the constructor, by default it's the hash stored for the
+ * key (see hashes) scrambled differently from the primary hash, so the key isn't hashed twice.
+ * The capacity being prime, the first cell of a key is obtained with a multiplication and a
+ * shift instead of a mask (see reduce), and the incremental resize is not supported.
+ */
+public class HashTableDoubleHashing<Key, Value> extends HashTableOpenAddressingBase<Key, Value> {
+
+    // odd constant (2^32 / golden ratio) mixed into the hash for the default secondary hash
+    private static final int SECONDARY_HASH_MULTIPLIER = 0x9E3779B9;
+
+    // the secondary hash given to the constructor, null for the default one
+    private final ToIntFunction<? super Key> secondaryHash;
+
+    // step of the probe sequence of the key being looked up, set by setupProbing
+    private int delta;
+    // x * delta mod capacity for the last x given to probe
+    private int lastProbe, lastX;
+
+    public HashTableDoubleHashing() {
+        super();
+        secondaryHash = null;
+    }
+
+    public HashTableDoubleHashing(int capacity) {
+        super(capacity);
+        secondaryHash = null;
+    }
+
+    public HashTableDoubleHashing(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+        secondaryHash = null;
+    }
+
+    public HashTableDoubleHashing(int capacity, double loadFactor, ToIntFunction<? super Key> secondaryHash) {
+        super(capacity, loadFactor);
+        if (secondaryHash == null) throw new IllegalArgumentException("Null secondary hash");
+        this.secondaryHash = secondaryHash;
+    }
+
+    // the step of the key, in [1, capacity)
+    @Override
+    protected void setupProbing(Key key, int hash) {
+        int h = (secondaryHash == null) ? Hashing.spread(hash * SECONDARY_HASH_MULTIPLIER) : secondaryHash.applyAsInt(key);
+        delta = reduce(h, capacity - 1) + 1;
+        lastProbe = lastX = 0;
+    }
+
+    // x * delta reduced modulo the capacity, so that adding the offset can't overflow.
+    // The lookups ask for x = 1, 2, 3, ... so the previous value is advanced by a step
+    // instead of computing the product and its modulo
+    @Override
+    protected int probe(int x) {
+        if (x == lastX + 1) {
+            lastProbe += delta;
+            if (lastProbe >= capacity) lastProbe -= capacity;
+        } else {
+            lastProbe = (int) ((long) x * delta % capacity);
+        }
+
+        lastX = x;
+        return lastProbe;
+    }
+
+    // Adjust the capacity of the hashtable to the next prime. Doubling in
+    // increaseCapacity is followed by this, so the table always has a prime size.
+    @Override
+    protected void adjustCapacity() {
+        capacity = nextPrime(capacity);
+    }
+
+    // The capacity is not a power of two, so the index can't be a mask. Every hash is
+    // reduced to [0, capacity) without a division, so all the cells get the same share
+    @Override
+    protected int homeIndex(int hash) {
+        return reduce(hash, capacity);
+    }
+
+    // The probes ask for offset + probe(x), in [0, 2 * capacity) since both are reduced,
+    // which is wrapped around with a subtraction
+    @Override
+    protected int normalizeIndex(int index) {
+        return index < capacity ? index : index - capacity;
+    }
+
+    // maps a hash to [0, n) with a multiplication and a shift (the high 32 bits of hash * n
+    // taken unsigned), as uniform as a modulo for a well spread hash but much cheaper
+    private static int reduce(int hash, int n) {
+        return (int) (((hash & 0xFFFFFFFFL) * n) >>> 32);
+    }
+
+    // smallest prime greater or equal to n
+    private static int nextPrime(int n) {
+        if (n <= 2) return 2;
+        if (n % 2 == 0) n++;
+        while (!isPrime(n)) n += 2;
+        return n;
+    }
+
+    // trial division by the odd numbers up to sqrt(n), n being odd
+    private static boolean isPrime(int n) {
+        for (int d = 3; (long) d * d <= n; d += 2)
+            if (n % d == 0) return false;
+        return true;
+    }
+
+}
@@ -5,8 +5,8 @@
 public class HashTableLinearProbing<Key, Value> extends HashTableOpenAddressingBase<Key, Value>{
 
     // This is the linear constant used in the linear probing, it can be
-    // any positive number. The table capacity will be adjusted so that
-    // the GCD(capacity, LINEAR_CONSTANT) = 1 so that all buckets can be probed.
+    // any positive odd number. The table capacity is a power of two so
+    // the GCD(capacity, LINEAR_CONSTANT) = 1 and all buckets can be probed.
     private static final int LINEAR_CONSTANT = 1;
 
     public HashTableLinearProbing() {
@@ -21,22 +21,27 @@ public class HashTableLinearProbing<Key, Value> extends HashTableOpenAddressingB
         super(capacity, loadFactor);
     }
 
+    // with incrementalResize the table grows by migrating a few cells on every
+    // insert/remove instead of rehashing every key at once
+    public HashTableLinearProbing(int capacity, double loadFactor, boolean incrementalResize) {
+        super(capacity, loadFactor, incrementalResize);
+    }
+
     // with linear probing is not necessary to do any setup
     @Override
-    protected void setupProbing(Key key) {}
+    protected void setupProbing(Key key, int hash) {}
 
     @Override
     protected int probe(int x) {
         return x * LINEAR_CONSTANT;
     }
 
-    // Adjust the capacity so that the linear constant and
-    // the table capacity are relatively prime.
+    // Adjust the capacity to a power of two. Being LINEAR_CONSTANT odd, the linear
+    // constant and the table capacity are relatively prime.
     // This with the objective of avoid short cycles with the probing function
     @Override
     protected void adjustCapacity() {
-        while (gcd(LINEAR_CONSTANT, capacity) != 1)
-            capacity++;
+        capacity = Hashing.tableSizeFor(capacity);
     }
 
 }
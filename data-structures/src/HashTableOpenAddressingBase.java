@@ -1,7 +1,14 @@
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /*
 *   Base class for hashtables with an open addressing collision resolution method
@@ -28,15 +35,45 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
     // Arrays to keep the key and value pairs
     protected Key[] keys;
     protected Value[] values;
+    // spread hash code of the key of every used cell. The probes compare it before calling
+    // equals(), so a key is only compared with the keys that have the same hash, and a
+    // resize places the keys again without calling their hashCode()
+    protected int[] hashes;
 
     // Special marker token used to indicate the deletion of a key-value pair
     // in the hashtable
     protected final Key TOMBSTONE = (Key) (new Object());
 
+    // sampled lookup probe lengths and resize counters, see stats(). null unless
+    // recordStats(true) was called, the lookups check it once
+    protected HashTableStats.Recorder statsRecorder;
+
+    // When the incremental resize mode is on, a resize only allocates the new arrays. The old
+    // ones are kept in oldKeys/oldValues and their cells are moved a few at a time by every
+    // insert/remove, cells below rehashIndex are already moved. Until the migration ends,
+    // lookups that miss in the new arrays continue in the old ones.
+    protected final boolean incrementalResize;
+    protected Key[] oldKeys;
+    protected Value[] oldValues;
+    protected int[] oldHashes;
+    protected int oldCapacity;
+    protected int rehashIndex;
+
+    // capacity asked for by ensureCapacity or shrinkIfSparse, the next resize
+    // goes straight to it instead of doubling the table
+    private int requestedCapacity;
+
+    // smallest capacity shrinkIfSparse() goes down to: the capacity given to the constructor or
+    // reached by ensureCapacity. As with java.util.HashMap, a presized capacity is a minimum
+    private int minimumCapacity;
+
     // default hashtable parameters
-    private static final int DEFAULT_CAPACITY = 7;
+    private static final int DEFAULT_CAPACITY = 8;
     private static final double DEFAULT_LOAD_FACTOR = 0.65;
 
+    // number of old cells migrated by every write during an incremental resize
+    private static final int REHASH_STEP = 8;
+
     // constructors
     protected HashTableOpenAddressingBase() {
         this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
@@ -47,25 +84,33 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
     }
 
     protected HashTableOpenAddressingBase(int capacity, double loadFactor) {
+        this(capacity, loadFactor, false);
+    }
+
+    protected HashTableOpenAddressingBase(int capacity, double loadFactor, boolean incrementalResize) {
         if (capacity <= 0) throw new IllegalArgumentException("Illegal capacity: " + capacity);
 
         if (loadFactor <= 0 || Double.isNaN(loadFactor) || Double.isInfinite(loadFactor))
             throw new IllegalArgumentException("Illegal loadFactor: " + loadFactor);
 
         this.loadFactor = loadFactor;
+        this.incrementalResize = incrementalResize;
         this.capacity = Math.max(DEFAULT_CAPACITY, capacity);
         adjustCapacity();
-        threshold = (int) (capacity * loadFactor);
+        minimumCapacity = this.capacity;
+        threshold = (int) (this.capacity * loadFactor);
 
         keys = (Key[]) new Object[this.capacity];
         values = (Value[]) new Object[this.capacity];
+        hashes = new int[this.capacity];
     }
 
     // the following methods dictate how the probing is to actually
     // occur for whatever open addressing scheme is implemented
 
-    // helps with the definition of some important variables for the probing function (necessary for double hashing)
-    protected abstract void setupProbing(Key key);
+    // helps with the definition of some important variables for the probing function (necessary for double hashing).
+    // hash is the spread hash code of the key, the one stored in hashes
+    protected abstract void setupProbing(Key key, int hash);
 
     // the actual method to do the probing
 
@@ -73,17 +118,101 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
 
     // Adjusts the capacity of the hash table after it's been made larger.
     // This is important to be able to override because the size of the hashtable
-    // controls the functionality of the probing function.
+    // controls the functionality of the probing function. Implementations must leave
+    // a power of two capacity, or override homeIndex and normalizeIndex accordingly.
     protected abstract void adjustCapacity();
 
-    // increase the capacity of the hashtable
+    // set the capacity of the hashtable for a resize, see nextCapacity()
     protected void increaseCapacity() {
+        capacity = nextCapacity();
+    }
+
+    // Capacity of the table after a resize. The insertions resize the table once usedBuckets,
+    // which counts the deleted cells, reaches the threshold. When the live keys fill less than
+    // half of it the deleted cells are the cause: the keys are rehashed into arrays of the same
+    // size, which drops the deleted cells, instead of doubling the memory of a table whose
+    // size doesn't grow. The table is doubled otherwise, so a resize always frees at least
+    // half of the threshold for the insertions.
+    protected int nextCapacity() {
+        if (requestedCapacity != 0) return requestedCapacity;
+        return keyCount >= threshold / 2 ? doubledCapacity() : capacity;
+    }
+
+    // twice the capacity, clamped to Hashing.MAXIMUM_CAPACITY. Fails once the table is
+    // already that large, since doubling it would overflow the capacity
+    protected final int doubledCapacity() {
+        if (capacity >= Hashing.MAXIMUM_CAPACITY)
+            throw new IllegalStateException("Table full: can't grow past " + Hashing.MAXIMUM_CAPACITY + " cells");
+
+        return Math.min(2 * capacity, Hashing.MAXIMUM_CAPACITY);
+    }
+
+    // Makes room for the given number of keys, so that inserting them doesn't resize the table.
+    // The keys are rehashed once, into arrays sized for the load factor, instead of going
+    // through every doubling in between. With the incremental mode the rehash is spread over
+    // the next writes as usual. The removals don't shrink the table below that capacity.
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize < 0) throw new IllegalArgumentException("Illegal size: " + expectedSize);
+
+        growFor(expectedSize);
+        minimumCapacity = Math.max(minimumCapacity, capacity);
+    }
+
+    // resizes the table once for the given number of keys if they don't fit below the threshold
+    private void growFor(int expectedSize) {
+        if (expectedSize <= threshold) return;
+
+        int capacityNeeded = (int) Math.min(Math.ceil(expectedSize / loadFactor) + 1, Hashing.MAXIMUM_CAPACITY);
+        requestedCapacity = Math.max((int) Math.min(2L * capacity, Hashing.MAXIMUM_CAPACITY), capacityNeeded);
+        resize();
+        requestedCapacity = 0;
+    }
+
+    // Halves the table once the keys fill no more than a quarter of the threshold, so the
+    // memory follows the live keys after a burst of removals. The halved table is at most
+    // half full, it takes as many insertions as there are keys to grow it again, so a size
+    // going up and down around the limit doesn't resize the table back and forth. The table
+    // isn't halved below minimumCapacity.
+    protected final void shrinkIfSparse() {
+        if (keyCount > threshold / 4 || capacity / 2 < minimumCapacity) return;
+
+        requestedCapacity = capacity / 2;
+        resize();
+        requestedCapacity = 0;
+    }
+
+    // Inserts every key with the value at the same position, keys that are already in the
+    // table have their value updated. The table is sized once for all the keys beforehand.
+    public void putAll(Key[] newKeys, Value[] newValues) {
+        if (newKeys.length != newValues.length)
+            throw new IllegalArgumentException("Got " + newKeys.length + " keys and " + newValues.length + " values");
+
+        growFor((int) Math.min((long) keyCount + newKeys.length, Integer.MAX_VALUE));
+        for (int i = 0; i < newKeys.length; i++) insert(newKeys[i], newValues[i]);
+    }
+
+    // Inserts every entry, the table is sized beforehand when the number of entries is known
+    public void putAll(Iterable<? extends Map.Entry<? extends Key, ? extends Value>> entries) {
+        if (entries instanceof Collection<?> collection)
+            growFor((int) Math.min((long) keyCount + collection.size(), Integer.MAX_VALUE));
+
+        for (Map.Entry<? extends Key, ? extends Value> entry : entries) insert(entry.getKey(), entry.getValue());
+    }
 
-        capacity = (2 * capacity);
+    // resizes the table keeping track of the number of resizes and the time spent on them
+    protected final void resize() {
+        long start = System.nanoTime();
+        resizeTable();
+        if (statsRecorder != null) statsRecorder.recordResize(System.nanoTime() - start);
     }
 
-    // double the size of the hash-table
+    // rehash the keys into arrays of nextCapacity() cells
     protected void resizeTable() {
+        if (incrementalResize) {
+            startIncrementalResize();
+            return;
+        }
+
         increaseCapacity();
         adjustCapacity();
 
@@ -95,13 +224,16 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
         Value[] oldValueTable = values;
         values = (Value[]) new Object[capacity];
 
+        int[] oldHashTable = hashes;
+        hashes = new int[capacity];
+
         // Reset the key count and buckets used since we are about to
         // re-insert all the keys into the hash-table.
         keyCount = usedBuckets = 0;
 
         for (int i = 0; i < oldKeyTable.length; i++) {
             if (oldKeyTable[i] != null && oldKeyTable[i] != TOMBSTONE) {
-                insert(oldKeyTable[i], oldValueTable[i]);
+                put(oldKeyTable[i], oldValueTable[i], oldHashTable[i]);
             }
 
             oldValueTable[i] = null;
@@ -109,6 +241,89 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
         }
     }
 
+    // allocate the new arrays and leave the current ones to be migrated by rehashStep
+    private void startIncrementalResize() {
+        // a previous migration that is still in progress is completed first
+        while (oldKeys != null) rehashStep();
+
+        oldKeys = keys;
+        oldValues = values;
+        oldHashes = hashes;
+        oldCapacity = capacity;
+        rehashIndex = 0;
+
+        increaseCapacity();
+        adjustCapacity();
+
+        threshold = (int) (capacity * loadFactor);
+
+        keys = (Key[]) new Object[capacity];
+        values = (Value[]) new Object[capacity];
+        hashes = new int[capacity];
+
+        // the keys waiting in the old arrays are still part of keyCount
+        usedBuckets = 0;
+    }
+
+    // Move the next REHASH_STEP cells of the old arrays to the current ones. Moved cells are
+    // marked as deleted rather than cleared so the probe sequences of the keys that are
+    // still waiting in the old arrays remain intact.
+    private void rehashStep() {
+        for (int n = 0; n < REHASH_STEP && rehashIndex < oldCapacity; n++, rehashIndex++) {
+            Key key = oldKeys[rehashIndex];
+
+            if (key != null && key != TOMBSTONE) {
+                Value value = oldValues[rehashIndex];
+                oldKeys[rehashIndex] = TOMBSTONE;
+                oldValues[rehashIndex] = null;
+
+                keyCount--;
+                put(key, value, oldHashes[rehashIndex]);
+            }
+        }
+
+        if (rehashIndex == oldCapacity) {
+            oldKeys = null;
+            oldValues = null;
+            oldHashes = null;
+        }
+
+        modificationCount++;
+    }
+
+    // converts a hash value to an index of the old arrays during an incremental resize
+    protected int normalizeOldIndex(int keyHash) {
+        return keyHash & (oldCapacity - 1);
+    }
+
+    // finds the cell of the old arrays holding the key, or -1 if it isn't there
+    private int seekOldTable(Key key, int hash) {
+        setupProbing(key, hash);
+        final int offset = normalizeOldIndex(hash);
+
+        for (int i = offset, x = 1 ;; i = normalizeOldIndex(offset + probe(x++))) {
+            if (oldKeys[i] == TOMBSTONE) continue;
+            if (oldKeys[i] == null) return -1;
+            if (oldHashes[i] == hash && oldKeys[i].equals(key)) return i;
+        }
+    }
+
+    // remove the key from the old arrays if it's there, returns its value or null
+    private Value removeFromOldTable(Key key, int hash) {
+        int i = seekOldTable(key, hash);
+        return (i == -1) ? null : removeOldCell(i);
+    }
+
+    // clear the cell i of the old arrays and return its value
+    private Value removeOldCell(int i) {
+        Value oldValue = oldValues[i];
+        oldKeys[i] = TOMBSTONE;
+        oldValues[i] = null;
+        keyCount--;
+        modificationCount++;
+        return oldValue;
+    }
+
     // clear the hashtable information
     public void clear() {
         for (int i = 0; i < capacity; i++) {
@@ -116,6 +331,9 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
             values[i] = null;
         }
 
+        oldKeys = null;
+        oldValues = null;
+        oldHashes = null;
         keyCount = usedBuckets = 0;
         modificationCount++;
     }
@@ -135,12 +353,29 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
         return keyCount == 0;
     }
 
+    // The methods walking every key (keys(), values(), forEach, toString, the iterators and the
+    // spliterator) go over the slots [0, slotCount()): the cells, followed by the cells of the
+    // old arrays during an incremental resize. A subclass keeping keys outside of the cells
+    // overrides the three methods. slotKey returns null or TOMBSTONE for a slot without a key.
+    protected int slotCount() {
+        return oldKeys == null ? capacity : capacity + oldCapacity;
+    }
+
+    protected Key slotKey(int i) {
+        return (i < capacity) ? keys[i] : oldKeys[i - capacity];
+    }
+
+    protected Value slotValue(int i) {
+        return (i < capacity) ? values[i] : oldValues[i - capacity];
+    }
+
     // returns a list of keys found in the hash table
     public List<Key> keys() {
-        List<Key> hashtableKeys = new ArrayList<>();
+        List<Key> hashtableKeys = new ArrayList<>(keyCount);
 
-        for (int i = 0; i < capacity; i++) {
-            if (keys[i] != null && keys[i] != TOMBSTONE) hashtableKeys.add(keys[i]);
+        for (int i = 0, slots = slotCount(); i < slots; i++) {
+            Key key = slotKey(i);
+            if (key != null && key != TOMBSTONE) hashtableKeys.add(key);
         }
 
         return hashtableKeys;
@@ -148,19 +383,29 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
 
     // returns a list of non-unique values found in the hashtable
     public List<Value> values() {
-        List<Value> hashtableValues = new ArrayList<>();
+        List<Value> hashtableValues = new ArrayList<>(keyCount);
 
-        for (int i = 0; i < capacity; i++) {
-            if (keys[i] != null && keys[i] != TOMBSTONE) hashtableValues.add(values[i]);
+        for (int i = 0, slots = slotCount(); i < slots; i++) {
+            Key key = slotKey(i);
+            if (key != null && key != TOMBSTONE) hashtableValues.add(slotValue(i));
         }
 
         return hashtableValues;
     }
 
-    // converts a hash value to an index. Essentially, this strips the
-    // negative sign and places the hash value in the domain [0, capacity)
+    // converts a hash value to an index in the domain [0, capacity). The capacity
+    // is kept a power of two so this is a mask of the low bits. Callers spread the
+    // key hash first (see Hashing.spread) so that the low bits depend on the whole hash.
+    // The probes wrap offset + probe(x) around with it too.
     protected int normalizeIndex(int keyHash) {
-        return (keyHash & 0x7FFFFFFF) % capacity;
+        return keyHash & (capacity - 1);
+    }
+
+    // First cell of the probe sequence of a spread hash, in [0, capacity). With a power of
+    // two capacity it's the same mask as normalizeIndex, a subclass with another capacity
+    // overrides both: this one reduces any hash, normalizeIndex only wraps the probes.
+    protected int homeIndex(int hash) {
+        return normalizeIndex(hash);
     }
 
     // Finds the greatest common denominator of a and b.
@@ -174,8 +419,9 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
         if (key == null) throw new IllegalArgumentException("Null key");
 
         // ??
-        setupProbing(key);
-        final int offset = normalizeIndex(key.hashCode());
+        final int hash = Hashing.spread(key.hashCode());
+        setupProbing(key, hash);
+        final int offset = homeIndex(hash);
 
         // Start at the original hash value and probe until we find a spot where our key
         //is hit or a null element (in which case our key does nor exists)
@@ -189,7 +435,7 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
 
             // we hit a non-null key, perhaps it's the one we're looking for
             } else if (keys[i] != null) {
-                if (keys[i].equals(key)) {
+                if (hashes[i] == hash && keys[i].equals(key)) {
 
                     // If j != -1 this means we previously encountered a deleted cell.
                     // We can perform an optimization by swapping the entries in cells
@@ -199,15 +445,16 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
                         // swap the key-value pairs of positions i and j
                         keys[j] = keys[i];
                         values[j] = values[i];
+                        hashes[j] = hash;
                         keys[i] = TOMBSTONE;
                         values[i] = null;
                     }
 
                     return true;
+                }
 
-                // else key was not found in the hashtable
-                } else return false;
-            }
+            // else key was not found in the hashtable
+            } else return false;
         }
     }
 
@@ -216,11 +463,31 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
     // then the value is updated.
     public Value insert(Key key, Value value) {
         if (key == null) throw new IllegalArgumentException("Null key");
-        if (usedBuckets >= threshold) resizeTable();
+        if (oldKeys != null) rehashStep();
+        if (usedBuckets >= threshold) resize();
+
+        final int hash = Hashing.spread(key.hashCode());
+
+        // during an incremental resize the key may still be in the old arrays,
+        // in that case it's moved to the current ones with its new value
+        if (oldKeys != null) {
+            int oldIndex = seekOldTable(key, hash);
+
+            if (oldIndex != -1) {
+                Value oldValue = removeOldCell(oldIndex);
+                put(key, value, hash);
+                return oldValue;
+            }
+        }
+
+        return put(key, value, hash);
+    }
 
+    // place a key-value pair in the current arrays, without checking the threshold
+    private Value put(Key key, Value value, int hash) {
         // ??
-        setupProbing(key);
-        final int offset = normalizeIndex(key.hashCode());
+        setupProbing(key, hash);
+        final int offset = homeIndex(hash);
 
         for (int i = offset, j = -1, x = 1 ;; i = normalizeIndex(offset + probe(x++))) {
 
@@ -233,7 +500,7 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
 
                 // The key we're trying to insert already exists in the hash-table,
                 // so update its value with the most recent value
-                if (keys[i].equals(key)) {
+                if (hashes[i] == hash && keys[i].equals(key)) {
                     Value oldValue = values[i];
 
                     if (j == -1) {
@@ -243,77 +510,75 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
                         values[i] = null;
                         keys[j] = key;
                         values[j] = value;
+                        hashes[j] = hash;
                     }
 
                     modificationCount++;
                     return oldValue;
                 }
-                // current cell is null so an insertion/update can occur
-                else {
-
-                    // no previously encountered deleted buckets
-                    if (j == -1) {
-                        usedBuckets++;
-                        keyCount++;
-                        keys[i] = key;
-                        values[i] = value;
-                    }
-                    // Previously seen deleted bucket. Instead of inserting
-                    // the new element at i where the null element is, insert
-                    // it where the deleted token was found.
-                    else {
-                        keyCount++;
-                        keys[j] = key;
-                        values[j] = value;
-                    }
+            }
+            // current cell is null so an insertion/update can occur
+            else {
 
-                    modificationCount++;
-                    return null;
+                // no previously encountered deleted buckets
+                if (j == -1) {
+                    usedBuckets++;
+                    keyCount++;
+                    keys[i] = key;
+                    values[i] = value;
+                    hashes[i] = hash;
+                }
+                // Previously seen deleted bucket. Instead of inserting
+                // the new element at i where the null element is, insert
+                // it where the deleted token was found.
+                else {
+                    keyCount++;
+                    keys[j] = key;
+                    values[j] = value;
+                    hashes[j] = hash;
                 }
+
+                modificationCount++;
+                return null;
             }
         }
     }
 
     // Get the value associated with the input key
     // returns null if the value is null and also returns
-    // null if the key does not exists
+    // null if the key does not exists. A lookup doesn't move the key (the insertions do the
+    // lazy relocation), so the iterators, forEach and the views can look up keys
+    // without missing the ones they haven't reached yet.
     public Value get(Key key) {
         if (key == null) throw new IllegalArgumentException("Null key");
 
         // ??
-        setupProbing(key);
-        final int offset = normalizeIndex(key.hashCode());
+        final int hash = Hashing.spread(key.hashCode());
+        setupProbing(key, hash);
+        final int offset = homeIndex(hash);
 
         // Start at the original hash value and probe until we find a spot where our key
         // is or we hit a null element in which case our element does not exist.
-        for (int i = offset, j = -1, x = 1 ;; i = normalizeIndex(offset + probe(x++))) {
+        for (int i = offset, x = 1 ;; i = normalizeIndex(offset + probe(x++))) {
 
-            // Ignore deleted cells, but record where the first index
-            // of a deleted cell is found to perform lazy relocation later.
-            if (keys[i] == TOMBSTONE){
-                if (j == -1) j = i;
+            // Ignore deleted cells
+            if (keys[i] == TOMBSTONE) continue;
+
+            if (keys[i] == null) {
+                if (statsRecorder != null) statsRecorder.recordLookup(i, x);
+                if (oldKeys == null) return null;
+
+                // the key may not have been migrated yet
+                int oldIndex = seekOldTable(key, hash);
+                return oldIndex == -1 ? null : oldValues[oldIndex];
             }
-            else if (keys[i] == null) return null;
             // We hit a non-null key, perhaps it's the one we're looking for.
             else {
 
                 // The key we want is in the hash-table!
-                if (keys[i].equals(key)) {
-
-                    // If j != -1 this means we previously encountered a deleted cell.
-                    // We can perform an optimization by swapping the entries in cells
-                    // i and j so that the next time we search for this key it will be
-                    // found faster. This is called lazy deletion/relocation.
-                    if (j != -1) {
-                        // Swap key-values pairs at indexes i and j.
-                        keys[j] = keys[i];
-                        values[j] = values[i];
-                        keys[i] = TOMBSTONE;
-                        values[i] = null;
-
-                        return values[j];
-                    }
-                    else return values[i];
+                if (hashes[i] == hash && keys[i].equals(key)) {
+                    if (statsRecorder != null) statsRecorder.recordLookup(i, x);
+                    return values[i];
                 }
             }
         }
@@ -324,10 +589,12 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
     // null if the key does not exists.
     public Value remove(Key key) {
         if (key == null) throw new IllegalArgumentException("Null key");
+        if (oldKeys != null) rehashStep();
 
         // ??
-        setupProbing(key);
-        final int offset = normalizeIndex(key.hashCode());
+        final int hash = Hashing.spread(key.hashCode());
+        setupProbing(key, hash);
+        final int offset = homeIndex(hash);
 
         // Starting at the original hash probe until we find a spot where our key is
         // or we hit a null element in which case our element does not exist.
@@ -337,29 +604,80 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
             // of a deleted cell is found to perform lazy relocation later.
             if (keys[i] == TOMBSTONE) continue;
 
-            // Key was not found in hash-table.
-            if (keys[i] == null) return null;
+            // Key was not found in hash-table, it may not have been migrated yet
+            if (keys[i] == null) {
+                if (oldKeys == null) return null;
+
+                Value oldValue = removeFromOldTable(key, hash);
+                shrinkIfSparse();
+                return oldValue;
+            }
 
             // The key we want to remove is in the hash-table!
-            if (keys[i].equals(key)) {
+            if (hashes[i] == hash && keys[i].equals(key)) {
                 keyCount--;
                 modificationCount++;
                 Value oldValue = values[i];
                 keys[i] = TOMBSTONE;
                 values[i] = null;
+                shrinkIfSparse();
                 return oldValue;
             }
         }
     }
 
+    // Turns on or off the recording of the lookup probe lengths and resizes reported by
+    // stats(), it's off by default. Turning it off drops the counters recorded so far.
+    public void recordStats(boolean record) {
+        if (!record) statsRecorder = null;
+        else if (statsRecorder == null) statsRecorder = new HashTableStats.Recorder();
+    }
+
+    // Takes a snapshot of the statistics of the table. The structural figures are computed
+    // walking the current arrays, so it costs O(capacity); the keys still waiting in the
+    // old arrays of an incremental resize are not walked.
+    public HashTableStats stats() {
+        int liveKeys = 0, maxChainLength = 0;
+
+        for (int i = 0; i < capacity; i++) {
+            if (keys[i] != null && keys[i] != TOMBSTONE) {
+                liveKeys++;
+                maxChainLength = Math.max(maxChainLength, probeLength(i));
+            }
+        }
+
+        return new HashTableStats(keyCount, capacity, usedBuckets, usedBuckets - liveKeys, maxChainLength,
+                estimatedBytes(), statsRecorder);
+    }
+
+    // number of cells a lookup visits to reach the key stored at cell i
+    protected int probeLength(int i) {
+        setupProbing(keys[i], hashes[i]);
+        final int offset = homeIndex(hashes[i]);
+
+        int x = 1;
+        for (int j = offset; j != i && x <= capacity; j = normalizeIndex(offset + probe(x++)));
+        return x;
+    }
+
+    // estimate of the bytes retained by the arrays of the table
+    protected long estimatedBytes() {
+        long bytes = 2 * HashTableStats.referenceArrayBytes(capacity) + HashTableStats.primitiveArrayBytes(capacity, Integer.BYTES);
+        if (oldKeys != null) bytes += 2 * HashTableStats.referenceArrayBytes(oldCapacity);
+        if (oldHashes != null) bytes += HashTableStats.primitiveArrayBytes(oldCapacity, Integer.BYTES);
+        return bytes;
+    }
+
     // return a string view of this hashtable
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
 
         sb.append("{");
-        for (int i = 0; i < capacity; i++)
-            if (keys[i] != null && keys[i] != TOMBSTONE) sb.append(keys[i] + " => " + values[i] + ", ");
+        for (int i = 0, slots = slotCount(); i < slots; i++) {
+            Key key = slotKey(i);
+            if (key != null && key != TOMBSTONE) sb.append(key + " => " + slotValue(i) + ", ");
+        }
 
         if (sb.length() > 2){
             // Remove the trailing comma and space
@@ -370,30 +688,170 @@ public abstract class HashTableOpenAddressingBase<Key, Value> implements Iterabl
         return sb.toString();
     }
 
+    // Calls the action for every entry, walking the cells directly. Fails with a
+    // ConcurrentModificationException if the table is modified by the action.
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        final int expectedModificationCount = modificationCount;
+
+        for (int i = 0, slots = slotCount(); i < slots; i++) {
+            Key key = slotKey(i);
+            if (key != null && key != TOMBSTONE) action.accept(key, slotValue(i));
+        }
+
+        if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+    }
+
+    // Live views of the keys and the values, backed by the table rather than copied as keys()
+    // and values() do. They can't be modified, and their iterators fail like iterator().
+    public Collection<Key> keysView() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Key> iterator() {
+                return HashTableOpenAddressingBase.this.iterator();
+            }
+
+            @Override
+            public Spliterator<Key> spliterator() {
+                return HashTableOpenAddressingBase.this.spliterator();
+            }
+
+            @Override
+            public int size() {
+                return keyCount;
+            }
+        };
+    }
+
+    public Collection<Value> valuesView() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Value> iterator() {
+                return new CellIterator<>(true);
+            }
+
+            @Override
+            public int size() {
+                return keyCount;
+            }
+        };
+    }
+
     @Override
     public Iterator<Key> iterator() {
+        return new CellIterator<>(false);
+    }
+
+    // walks the cells holding a key, returning the key or its value
+    private final class CellIterator<T> implements Iterator<T> {
+
         // Before the iteration begins record the number of modifications
         // done to the hash-table. This value should not change as we iterate
         // otherwise a concurrent modification has occurred :0
-        final int MODIFICATION_COUNT = modificationCount;
+        private final int expectedModificationCount = modificationCount;
+        private final boolean returnValues;
+
+        private int index, keysLeft = keyCount;
 
-        return new Iterator<>() {
+        CellIterator(boolean returnValues) {
+            this.returnValues = returnValues;
+        }
 
-            int index, keysLeft = keyCount;
+        @Override
+        public boolean hasNext() {
+            // The contents of the table have been altered
+            if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+            return keysLeft != 0;
+        }
 
-            @Override
-            public boolean hasNext() {
-                // The contents of the table have been altered
-                if (MODIFICATION_COUNT != modificationCount) throw new ConcurrentModificationException();
-                return keysLeft != 0;
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+
+            // the slots are walked in order, see slotCount()
+            Key key;
+            do {
+                key = slotKey(index++);
+            } while (key == null || key == TOMBSTONE);
+
+            keysLeft--;
+            return returnValues ? (T) slotValue(index - 1) : (T) key;
+        }
+    }
+
+    // Splits the slots in halves, see slotCount(). The number of keys is only known for the
+    // whole table, a split part reports half of the keys of the part it was split from as an
+    // estimate.
+    @Override
+    public Spliterator<Key> spliterator() {
+        return new KeySpliterator(0, slotCount(), keyCount, true);
+    }
+
+    private final class KeySpliterator implements Spliterator<Key> {
+
+        // cells left to visit
+        private int index;
+        private final int fence;
+        private long estimate;
+        // the estimate is the exact number of keys, only before any split
+        private boolean sized;
+        private final int expectedModificationCount = modificationCount;
+
+        KeySpliterator(int index, int fence, long estimate, boolean sized) {
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.sized = sized;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Key> action) {
+            while (index < fence) {
+                Key key = slotKey(index++);
+
+                if (key != null && key != TOMBSTONE) {
+                    if (estimate > 0) estimate--;
+                    action.accept(key);
+                    if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+                    return true;
+                }
             }
 
-            @Override
-            public Key next() {
-                while (keys[index] == null || keys[index] == TOMBSTONE) index++;
-                keysLeft--;
-                return keys[index++];
+            return false;
+        }
+
+        // the modifications are checked after every action, a removal can shrink the
+        // arrays and leave the remaining indexes out of them
+        @Override
+        public void forEachRemaining(Consumer<? super Key> action) {
+            for (; index < fence; index++) {
+                Key key = slotKey(index);
+
+                if (key != null && key != TOMBSTONE) {
+                    action.accept(key);
+                    if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+                }
             }
-        };
+        }
+
+        @Override
+        public Spliterator<Key> trySplit() {
+            int middle = (index + fence) >>> 1;
+            if (middle <= index) return null;
+
+            KeySpliterator prefix = new KeySpliterator(index, middle, estimate >>>= 1, false);
+            index = middle;
+            sized = false;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return (sized ? Spliterator.SIZED : 0) | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
     }
 }
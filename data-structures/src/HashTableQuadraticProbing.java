@@ -25,16 +25,15 @@ public class HashTableQuadraticProbing<Key, Value> extends HashTableOpenAddressi
         super(capacity, loadFactor);
     }
 
-    // Given a number this method finds the next
-    // power of two above this value.
-    private static int nextPowerOfTwo(int n) {
-        // left shift bitwise manipulation by 1 position
-        return Integer.highestOneBit(n) << 1;
+    // with incrementalResize the table grows by migrating a few cells on every
+    // insert/remove instead of rehashing every key at once
+    public HashTableQuadraticProbing(int capacity, double loadFactor, boolean incrementalResize) {
+        super(capacity, loadFactor, incrementalResize);
     }
 
     // no setup required for quadratic probing
     @Override
-    protected void setupProbing(Key key) {}
+    protected void setupProbing(Key key, int hash) {}
 
     @Override
     protected int probe(int x) {
@@ -44,17 +43,10 @@ public class HashTableQuadraticProbing<Key, Value> extends HashTableOpenAddressi
     }
 
     // Adjust the capacity of the hashtable to be a power of two.
+    // Doubling in increaseCapacity keeps it that way.
     @Override
     protected void adjustCapacity() {
-        int pow2 = Integer.highestOneBit(capacity);
-        if (capacity == pow2) return;
-        increaseCapacity();
-    }
-
-    // Increase the capacity of the hashtable to the next power of two.
-    @Override
-    protected void increaseCapacity() {
-        capacity = nextPowerOfTwo(capacity);
+        capacity = Hashing.tableSizeFor(capacity);
     }
 
 }
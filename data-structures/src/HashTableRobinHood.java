@@ -0,0 +1,227 @@
+import java.util.Arrays;
+
+/**
+ * An implementation of a hash-table using open addressing with linear probing and Robin Hood
+ * hashing as a collision resolution method.
+ *
+ * Every entry records its probe distance, how far it is from the cell its hash maps to. On
+ * insertion an entry that is closer to its home cell than the one being inserted gives up its
+ * place ("takes from the rich") and the displaced entry continues probing, which keeps the
+ * variance of the probe distances low. Lookups can stop as soon as they meet an entry closer to
+ * home than the probe itself.
+ *
+ * Removals use backward-shift deletion: the entries following the removed one are moved one
+ * cell back until an empty cell or an entry already at its home cell is found, so the table
+ * never contains TOMBSTONE markers and probe lengths don't degrade under heavy deletes.
+ */
+@SuppressWarnings("unchecked")
+public class HashTableRobinHood<Key, Value> extends HashTableOpenAddressingBase<Key, Value> {
+
+    // probe distance of the entry stored in every cell
+    private int[] distances;
+
+    public HashTableRobinHood() {
+        super();
+        distances = new int[capacity];
+    }
+
+    public HashTableRobinHood(int capacity) {
+        super(capacity);
+        distances = new int[this.capacity];
+    }
+
+    public HashTableRobinHood(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+        distances = new int[this.capacity];
+    }
+
+    // with linear probing is not necessary to do any setup
+    @Override
+    protected void setupProbing(Key key, int hash) {}
+
+    @Override
+    protected int probe(int x) {
+        return x;
+    }
+
+    // a step of one visits every cell for any capacity, only
+    // round it up to the power of two normalizeIndex requires
+    @Override
+    protected void adjustCapacity() {
+        capacity = Hashing.tableSizeFor(capacity);
+    }
+
+    // index of the cell following i in the probe sequence
+    private int nextIndex(int i) {
+        return (i + 1) & (capacity - 1);
+    }
+
+    // double the size of the hash-table
+    @Override
+    protected void resizeTable() {
+        increaseCapacity();
+        adjustCapacity();
+
+        threshold = (int) (capacity * loadFactor);
+
+        Key[] oldKeyTable = keys;
+        Value[] oldValueTable = values;
+        int[] oldHashTable = hashes;
+
+        keys = (Key[]) new Object[capacity];
+        values = (Value[]) new Object[capacity];
+        hashes = new int[capacity];
+        distances = new int[capacity];
+
+        // Reset the key count and buckets used since we are about to
+        // re-insert all the keys into the hash-table.
+        keyCount = usedBuckets = 0;
+
+        for (int i = 0; i < oldKeyTable.length; i++) {
+            if (oldKeyTable[i] != null) put(oldKeyTable[i], oldValueTable[i], oldHashTable[i]);
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(distances, 0);
+    }
+
+    // Place a key-value pair into the hash-table. If the value already exists
+    // then the value is updated.
+    @Override
+    public Value insert(Key key, Value value) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        if (usedBuckets >= threshold) resize();
+
+        return put(key, value, Hashing.spread(key.hashCode()));
+    }
+
+    // place a key-value pair given its spread hash, without checking the threshold
+    private Value put(Key key, Value value, int hash) {
+        int i = normalizeIndex(hash);
+        int distance = 0;
+
+        // Look for the key, it can only be found before an empty cell or before an
+        // entry that is closer to its home cell than we are to ours
+        while (keys[i] != null && distances[i] >= distance) {
+            if (hashes[i] == hash && keys[i].equals(key)) {
+                Value oldValue = values[i];
+                values[i] = value;
+                modificationCount++;
+                return oldValue;
+            }
+
+            i = nextIndex(i);
+            distance++;
+        }
+
+        // The key is new. Place it at i and keep shifting the displaced
+        // entries forward, each one taking the place of a richer entry.
+        Key currentKey = key;
+        Value currentValue = value;
+        int currentHash = hash;
+
+        while (keys[i] != null) {
+            if (distances[i] < distance) {
+                Key displacedKey = keys[i];
+                Value displacedValue = values[i];
+                int displacedHash = hashes[i];
+                int displacedDistance = distances[i];
+
+                keys[i] = currentKey;
+                values[i] = currentValue;
+                hashes[i] = currentHash;
+                distances[i] = distance;
+
+                currentKey = displacedKey;
+                currentValue = displacedValue;
+                currentHash = displacedHash;
+                distance = displacedDistance;
+            }
+
+            i = nextIndex(i);
+            distance++;
+        }
+
+        keys[i] = currentKey;
+        values[i] = currentValue;
+        hashes[i] = currentHash;
+        distances[i] = distance;
+
+        usedBuckets++;
+        keyCount++;
+        modificationCount++;
+        return null;
+    }
+
+    // Get the value associated with the input key
+    // returns null if the value is null and also returns
+    // null if the key does not exists
+    @Override
+    public Value get(Key key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+
+        int i = indexOf(key, statsRecorder);
+        return i == -1 ? null : values[i];
+    }
+
+    // Removes a key from the map and returns the value.
+    // NOTE: returns null if the value is null AND also returns
+    // null if the key does not exists.
+    @Override
+    public Value remove(Key key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+
+        int i = indexOf(key, null);
+        if (i == -1) return null;
+
+        Value oldValue = values[i];
+
+        // Backward shift: pull back every following entry that is not at its
+        // home cell, the first one that is (or an empty cell) ends the cluster
+        for (int j = nextIndex(i); keys[j] != null && distances[j] > 0; i = j, j = nextIndex(j)) {
+            keys[i] = keys[j];
+            values[i] = values[j];
+            hashes[i] = hashes[j];
+            distances[i] = distances[j] - 1;
+        }
+
+        keys[i] = null;
+        values[i] = null;
+        distances[i] = 0;
+
+        keyCount--;
+        usedBuckets--;
+        modificationCount++;
+        shrinkIfSparse();
+        return oldValue;
+    }
+
+    // the distance array is retained on top of the keys and values
+    @Override
+    protected long estimatedBytes() {
+        return super.estimatedBytes() + HashTableStats.primitiveArrayBytes(capacity, Integer.BYTES);
+    }
+
+    // Finds the cell holding the key, or -1 if it does not exist. The probe length
+    // is recorded when a recorder is given, get() passes the table's one
+    private int indexOf(Key key, HashTableStats.Recorder recorder) {
+        final int hash = Hashing.spread(key.hashCode());
+        int i = normalizeIndex(hash);
+        int distance = 0;
+
+        for (; keys[i] != null && distances[i] >= distance; distance++) {
+            if (hashes[i] == hash && keys[i].equals(key)) {
+                if (recorder != null) recorder.recordLookup(i, distance + 1);
+                return i;
+            }
+            i = nextIndex(i);
+        }
+
+        if (recorder != null) recorder.recordLookup(i, distance + 1);
+        return -1;
+    }
+
+}
@@ -1,4 +1,10 @@
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 
 class Entry<Key, Value> {
 
@@ -7,11 +13,14 @@ class Entry<Key, Value> {
     int hash;
 
     public Entry(Key key, Value value) {
+        this(key, value, key.hashCode());
+    }
+
+    // for callers that already computed the hash code of the key
+    Entry(Key key, Value value, int hash) {
         this.key = key;
         this.value = value;
-
-        // use builtin method to compute the hashcode, or use overrided hashcode
-        this.hash = key.hashCode();
+        this.hash = hash;
     }
 
     public boolean equals(Entry<Key, Value> other) {
@@ -26,7 +35,7 @@ class Entry<Key, Value> {
 }
 public class HashTableSC<Key, Value> implements Iterable<Key> {
 
-    private static final int DEFAULT_CAPACITY = 3;
+    private static final int DEFAULT_CAPACITY = 4;
 
     // used to keep track of the table size
     private static final double DEFAULT_LOAD_FACTOR = .75;
@@ -42,6 +51,38 @@ public class HashTableSC<Key, Value> implements Iterable<Key> {
     // table
     private LinkedList<Entry<Key, Value>>[] table;
 
+    // buckets moved from the old table to the current one by every add/remove
+    // while an incremental resize is in progress
+    private static final int REHASH_STEP = 4;
+
+    // when set, a resize doesn't rehash every entry at once. The old table is kept
+    // aside and its buckets are moved a few at a time by the following writes
+    private final boolean incrementalResize;
+    // table being migrated, null when no resize is in progress
+    private LinkedList<Entry<Key, Value>>[] oldTable;
+    private int oldCapacity;
+    // next bucket of the old table to migrate
+    private int rehashIndex;
+
+    // batches smaller than this are not worth splitting between workers
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    // capacity asked for by ensureCapacity, the next resize grows the table
+    // straight to it instead of doubling it
+    private int requestedCapacity;
+
+    // structural changes (keys added or removed, entries moved by a resize), the
+    // iterators, views and forEach fail when it changes under them
+    private int modificationCount;
+
+    // sampled lookup probe lengths and resize counters, see stats(). null unless
+    // recordStats(true) was called, the lookups check it once
+    private HashTableStats.Recorder statsRecorder;
+
+    // estimated bytes of the LinkedList of a bucket, and of a LinkedList node with its Entry
+    private static final int BUCKET_BYTES = 32;
+    private static final int ENTRY_BYTES = 48;
+
     public HashTableSC() {
         this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
     }
@@ -51,15 +92,32 @@ public class HashTableSC<Key, Value> implements Iterable<Key> {
     }
 
     public HashTableSC(int capacity, double maxLoadFactor) {
+        this(capacity, maxLoadFactor, false);
+    }
+
+    public HashTableSC(int capacity, double maxLoadFactor, boolean incrementalResize) {
         if (capacity < 0)
             throw new IllegalArgumentException("Illegal Capacity");
         if (maxLoadFactor <= 0 || Double.isNaN(maxLoadFactor) || Double.isInfinite(maxLoadFactor))
             throw new IllegalArgumentException("Illegal load factor");
 
         this.maxLoadFactor = maxLoadFactor;
-        this.capacity = capacity;
+        this.capacity = Hashing.tableSizeFor(capacity);
         this.threshold = (int) (this.maxLoadFactor * this.capacity);
-        table = new LinkedList[this.capacity];
+        this.incrementalResize = incrementalResize;
+        table = newBucketArray(this.capacity);
+    }
+
+    // Java can't create arrays of a generic type, the bucket and entry arrays are created raw
+    // here and only here
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <Key, Value> LinkedList<Entry<Key, Value>>[] newBucketArray(int length) {
+        return new LinkedList[length];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <Key, Value> Entry<Key, Value>[] newEntryArray(int length) {
+        return new Entry[length];
     }
 
     // return the number of elements in the hash table
@@ -72,39 +130,225 @@ public class HashTableSC<Key, Value> implements Iterable<Key> {
         return size == 0;
     }
 
-    // convert the hash value to an index of the table.
-    // strips the negative sign and places the hash value in the domain [0, capacity)
+    // convert the hash value to an index of the table in the domain [0, capacity).
+    // the capacity is a power of two, so the hash is spread and then masked
     private int normalizeIndex(int keyHash) {
-        return (keyHash & 0x7FFFFFFF) % capacity;
+        return Hashing.spread(keyHash) & (capacity - 1);
+    }
+
+    // same as normalizeIndex but for the table being migrated
+    private int normalizeOldIndex(int keyHash) {
+        return Hashing.spread(keyHash) & (oldCapacity - 1);
     }
 
     // clears al the contents of the hash table
     public void clear() {
         Arrays.fill(table, null);
+        oldTable = null;
         size = 0;
+        modificationCount++;
     }
 
     // returns true depending on whether a key is in the hash table
     public boolean hasKey(Key key) {
-        int bucketIndex = normalizeIndex(key.hashCode());
-        return seekBucketEntry(bucketIndex, key) != null;
+        int hash = key.hashCode();
+        return seekBucketEntry(normalizeIndex(hash), key, hash) != null || seekOldEntry(key, hash) != null;
     }
 
-    // finds and returns a particular entry in a given bucket if it exists, otherwise returns null
-    private Entry<Key, Value> seekBucketEntry(int bucketIndex, Key key) {
+    // finds and returns a particular entry in a given bucket if it exists, otherwise returns null.
+    // hash is the hash code of the key, compared with the one stored in the entries before equals()
+    private Entry<Key, Value> seekBucketEntry(int bucketIndex, Key key, int hash) {
 
         LinkedList<Entry<Key, Value>> tableBucket = table[bucketIndex];
         if (tableBucket == null) return null;
 
         for (Entry<Key, Value> entry : tableBucket)
-            if (entry.key.equals(key)) return entry;
+            if (entry.hash == hash && entry.key.equals(key)) return entry;
 
         return null;
     }
 
+    // finds and returns the entry of a key that is still in the old table, otherwise returns null
+    private Entry<Key, Value> seekOldEntry(Key key, int hash) {
+        if (oldTable == null) return null;
+
+        LinkedList<Entry<Key, Value>> oldBucket = oldTable[normalizeOldIndex(hash)];
+        if (oldBucket == null) return null;
+
+        for (Entry<Key, Value> entry : oldBucket)
+            if (entry.hash == hash && entry.key.equals(key)) return entry;
+
+        return null;
+    }
+
+    // Makes room for the given number of keys, so that adding them doesn't resize the table.
+    // The entries are rehashed once, into a table sized for the load factor, instead of going
+    // through every doubling in between. With the incremental mode the rehash is spread over
+    // the next writes as usual.
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize < 0) throw new IllegalArgumentException("Illegal size: " + expectedSize);
+        if (expectedSize <= threshold) return;
+
+        requestedCapacity = Hashing.tableSizeFor((int) Math.min(Math.ceil(expectedSize / maxLoadFactor) + 1, Hashing.MAXIMUM_CAPACITY));
+        resize();
+        requestedCapacity = 0;
+    }
+
+    // Adds every key with the value at the same position, keys that are already in the table
+    // have their value updated. The table is sized once for all the keys beforehand.
+    public void putAll(Key[] keys, Value[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException("Got " + keys.length + " keys and " + values.length + " values");
+
+        ensureCapacity((int) Math.min((long) size + keys.length, Integer.MAX_VALUE));
+        for (int i = 0; i < keys.length; i++) add(keys[i], values[i]);
+    }
+
+    // Adds every entry, the table is sized beforehand when the number of entries is known
+    public void putAll(Iterable<? extends Map.Entry<? extends Key, ? extends Value>> entries) {
+        if (entries instanceof Collection<?> collection)
+            ensureCapacity((int) Math.min((long) size + collection.size(), Integer.MAX_VALUE));
+
+        for (Map.Entry<? extends Key, ? extends Value> entry : entries) add(entry.getKey(), entry.getValue());
+    }
+
+    // Same as putAll(keys, values) but the work is split between the workers of the common
+    // fork/join pool, see putAllParallel(keys, values, pool)
+    public void putAllParallel(Key[] keys, Value[] values) {
+        putAllParallel(keys, values, ForkJoinPool.commonPool());
+    }
+
+    // Adds every key with the value at the same position, as putAll does, using the workers of
+    // the given pool. The table is sized once, then the batch goes through three parallel steps:
+    // - every worker hashes a chunk of the batch and counts its keys per partition, a partition
+    //   being a range of consecutive buckets
+    // - every worker creates the entries of its chunk and moves them to their partition of a
+    //   second array, at the positions given by the prefix sums of the counts
+    // - every worker adds the entries of a partition to its buckets
+    // No two workers write to the same bucket, so no lock is needed. The entries keep the batch
+    // order inside a partition, a key that appears several times gets its last value as with
+    // putAll. Small batches, or a pool with a single worker, go through putAll.
+    public void putAllParallel(Key[] keys, Value[] values, ForkJoinPool pool) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException("Got " + keys.length + " keys and " + values.length + " values");
+
+        int workers = pool.getParallelism();
+        if (keys.length < PARALLEL_THRESHOLD || workers == 1) {
+            putAll(keys, values);
+            return;
+        }
+
+        for (Key key : keys) if (key == null) throw new IllegalArgumentException("Null Key");
+
+        ensureCapacity((int) Math.min((long) size + keys.length, Integer.MAX_VALUE));
+        while (oldTable != null) rehashStep();
+
+        // a few chunks and partitions per worker to balance the load
+        int chunks = Math.min(4 * workers, keys.length / (PARALLEL_THRESHOLD / 4));
+        int partitions = Math.min(capacity, Hashing.tableSizeFor(4 * workers));
+        int partitionShift = Integer.numberOfTrailingZeros(capacity) - Integer.numberOfTrailingZeros(partitions);
+
+        int[] hashes = new int[keys.length];
+        int[][] counts = new int[chunks][partitions];
+
+        parallelFor(pool, chunks, chunk -> {
+            int[] chunkCounts = counts[chunk];
+            for (int i = chunkStart(chunk, chunks, keys.length); i < chunkStart(chunk + 1, chunks, keys.length); i++) {
+                hashes[i] = keys[i].hashCode();
+                chunkCounts[normalizeIndex(hashes[i]) >>> partitionShift]++;
+            }
+        });
+
+        // turn the counts into the position of every chunk inside every partition
+        int[] partitionStarts = new int[partitions + 1];
+        for (int partition = 0, position = 0; partition < partitions; partition++) {
+            partitionStarts[partition] = position;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int count = counts[chunk][partition];
+                counts[chunk][partition] = position;
+                position += count;
+            }
+        }
+        partitionStarts[partitions] = keys.length;
+
+        Entry<Key, Value>[] partitioned = newEntryArray(keys.length);
+
+        parallelFor(pool, chunks, chunk -> {
+            int[] positions = counts[chunk];
+            for (int i = chunkStart(chunk, chunks, keys.length); i < chunkStart(chunk + 1, chunks, keys.length); i++)
+                partitioned[positions[normalizeIndex(hashes[i]) >>> partitionShift]++] = new Entry<>(keys[i], values[i], hashes[i]);
+        });
+
+        int[] added = new int[partitions];
+
+        parallelFor(pool, partitions, partition -> {
+            for (int i = partitionStarts[partition]; i < partitionStarts[partition + 1]; i++) {
+                Entry<Key, Value> newEntry = partitioned[i];
+                int bucketIndex = normalizeIndex(newEntry.hash);
+
+                Entry<Key, Value> existentEntry = seekBucketEntry(bucketIndex, newEntry.key, newEntry.hash);
+                if (existentEntry != null) {
+                    existentEntry.value = newEntry.value;
+                    continue;
+                }
+
+                LinkedList<Entry<Key, Value>> bucket = table[bucketIndex];
+                if (bucket == null) table[bucketIndex] = bucket = new LinkedList<>();
+                bucket.add(newEntry);
+                added[partition]++;
+            }
+        });
+
+        for (int count : added) size += count;
+        modificationCount++;
+    }
+
+    // first index of a chunk when n elements are split in the given number of chunks
+    private static int chunkStart(int chunk, int chunks, int n) {
+        return (int) ((long) chunk * n / chunks);
+    }
+
+    // runs body for every task in [0, tasks) on the pool and waits for all of them,
+    // the joins make the writes of every task visible to the caller
+    private static void parallelFor(ForkJoinPool pool, int tasks, IntConsumer body) {
+        pool.invoke(new ParallelRange(0, tasks, body));
+    }
+
+    // a range of tasks, split in halves until a single one is left. RecursiveAction is
+    // Serializable, the tasks never are
+    @SuppressWarnings("serial")
+    private static final class ParallelRange extends RecursiveAction {
+
+        private final int from, to;
+        private final IntConsumer body;
+
+        ParallelRange(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                body.accept(from);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParallelRange(from, middle, body), new ParallelRange(middle, to, body));
+        }
+    }
+
+    // capacity of the table a resize grows to
+    private int nextCapacity() {
+        return Math.max(2 * capacity, requestedCapacity);
+    }
+
     // ad a value to the hash table
     public Value add(Key key, Value value) {
         if (key == null) throw new IllegalArgumentException("Null Key");
+        if (oldTable != null) rehashStep();
 
         Entry<Key, Value> newEntry = new Entry<>(key, value);
         int bucketIndex = normalizeIndex(newEntry.hash);
@@ -120,11 +364,13 @@ public class HashTableSC<Key, Value> implements Iterable<Key> {
         if (tableBucket == null)
             table[bucketIndex] = tableBucket = new LinkedList<>();
 
-        Entry<Key, Value> existentEntry = seekBucketEntry(bucketIndex, newEntry.key);
+        Entry<Key, Value> existentEntry = seekBucketEntry(bucketIndex, newEntry.key, newEntry.hash);
+        if (existentEntry == null) existentEntry = seekOldEntry(newEntry.key, newEntry.hash);
 
         if (existentEntry == null) {
             tableBucket.add(newEntry);
-            if (++size > threshold) resizeTable();
+            modificationCount++;
+            if (++size > threshold) resize();
             return null;
         } else {
             Value oldValue = existentEntry.value;
@@ -139,41 +385,82 @@ public class HashTableSC<Key, Value> implements Iterable<Key> {
     public Value get (Key key) {
         if (key == null) return null;
 
-        int bucketIndex = normalizeIndex(key.hashCode());
-        Entry<Key, Value> entry = seekBucketEntry(bucketIndex, key);
+        int hash = key.hashCode();
+        int bucketIndex = normalizeIndex(hash);
+
+        Entry<Key, Value> entry = seekBucketEntry(bucketIndex, key, hash);
+        if (statsRecorder != null && statsRecorder.isSampled(bucketIndex))
+            statsRecorder.recordLookup(bucketIndex, probeLength(bucketIndex, entry));
+        if (entry == null) entry = seekOldEntry(key, hash);
 
         if (entry != null) return entry.value;
 
         return null;
     }
 
+    // number of entries a lookup compared in the bucket to find the entry,
+    // every entry of the bucket for a missing one (entry == null)
+    private int probeLength(int bucketIndex, Entry<Key, Value> entry) {
+        LinkedList<Entry<Key, Value>> bucket = table[bucketIndex];
+        if (bucket == null) return 0;
+
+        int probes = 0;
+        for (Entry<Key, Value> bucketEntry : bucket) {
+            probes++;
+            if (bucketEntry == entry) break;
+        }
+        return probes;
+    }
+
     // remove a entry from the table given a key
     // return the value of the removed entry, or null if that entry not exists
     public Value remove(Key key) {
         if (key == null) return null;
-        int bucketIndex = normalizeIndex(key.hashCode());
-        return bucketRemoveEntry(bucketIndex, key);
+        if (oldTable != null) rehashStep();
+
+        int hash = key.hashCode();
+        return bucketRemoveEntry(normalizeIndex(hash), key, hash);
     }
 
-    private Value bucketRemoveEntry(int bucketIndex, Key key) {
+    private Value bucketRemoveEntry(int bucketIndex, Key key, int hash) {
         LinkedList<Entry<Key, Value>> bucket = table[bucketIndex];
 
-        Entry<Key, Value> entry = seekBucketEntry(bucketIndex, key);
+        Entry<Key, Value> entry = seekBucketEntry(bucketIndex, key, hash);
 
-        if (entry == null) return null;
+        if (entry != null) {
+            bucket.remove(entry);
+        } else {
+            // the key may not have been migrated yet
+            entry = seekOldEntry(key, hash);
+            if (entry == null) return null;
+            oldTable[normalizeOldIndex(entry.hash)].remove(entry);
+        }
 
-        bucket.remove(entry);
         size--;
+        modificationCount++;
         return entry.value;
     }
 
+    // resizes the table keeping track of the number of resizes and the time spent on them
+    private void resize() {
+        modificationCount++;
+        long start = System.nanoTime();
+        resizeTable();
+        if (statsRecorder != null) statsRecorder.recordResize(System.nanoTime() - start);
+    }
+
     // resizes the internal table holding buckets of entries
     private void resizeTable() {
 
-        capacity *= 2;
+        if (incrementalResize) {
+            startIncrementalResize();
+            return;
+        }
+
+        capacity = nextCapacity();
         threshold = (int) (capacity * maxLoadFactor);
 
-        LinkedList<Entry<Key, Value>>[] newTable = new LinkedList[capacity];
+        LinkedList<Entry<Key, Value>>[] newTable = newBucketArray(capacity);
 
         for (LinkedList<Entry<Key, Value>> list : table) {
             if (list != null) {
@@ -192,14 +479,95 @@ public class HashTableSC<Key, Value> implements Iterable<Key> {
         table = newTable;
     }
 
+    // doubles the table keeping the current one aside as the old table, its entries
+    // are moved by rehashStep and looked up in both tables in the meantime
+    private void startIncrementalResize() {
+
+        // finish the previous migration, if any, so that there are at most two tables
+        while (oldTable != null) rehashStep();
+
+        oldTable = table;
+        oldCapacity = capacity;
+        rehashIndex = 0;
+
+        capacity = nextCapacity();
+        threshold = (int) (capacity * maxLoadFactor);
+        table = newBucketArray(capacity);
+    }
+
+    // moves up to REHASH_STEP buckets of the old table to the current one,
+    // and drops the old table once all its buckets have been moved
+    private void rehashStep() {
+
+        for (int moved = 0; moved < REHASH_STEP && rehashIndex < oldCapacity; moved++, rehashIndex++) {
+            LinkedList<Entry<Key, Value>> oldBucket = oldTable[rehashIndex];
+            if (oldBucket == null) continue;
+
+            for (Entry<Key, Value> entry : oldBucket) {
+                int bucketIndex = normalizeIndex(entry.hash);
+                LinkedList<Entry<Key, Value>> bucket = table[bucketIndex];
+                if (bucket == null) table[bucketIndex] = bucket = new LinkedList<>();
+                bucket.add(entry);
+            }
+
+            oldTable[rehashIndex] = null;
+        }
+
+        if (rehashIndex == oldCapacity) oldTable = null;
+        modificationCount++;
+    }
+
+    // number of buckets to visit to go over every entry, the buckets of the
+    // old table follow the current ones while a migration is in progress
+    private int bucketCount() {
+        return oldTable == null ? capacity : capacity + oldCapacity;
+    }
+
+    private LinkedList<Entry<Key, Value>> bucketAt(int index) {
+        return index < capacity ? table[index] : oldTable[index - capacity];
+    }
+
+    // Turns on or off the recording of the lookup chain lengths and resizes reported by
+    // stats(), it's off by default. Turning it off drops the counters recorded so far.
+    public void recordStats(boolean record) {
+        if (!record) statsRecorder = null;
+        else if (statsRecorder == null) statsRecorder = new HashTableStats.Recorder();
+    }
+
+    // Takes a snapshot of the statistics of the table, walking every bucket. The used buckets
+    // are the non empty ones, and the estimated bytes include the bucket lists and the entries
+    public HashTableStats stats() {
+        int usedBuckets = 0, allocatedBuckets = 0, maxChainLength = 0;
+
+        for (int i = 0; i < bucketCount(); i++) {
+            LinkedList<Entry<Key, Value>> bucket = bucketAt(i);
+            if (bucket == null) continue;
+
+            // emptied buckets keep their list
+            allocatedBuckets++;
+            if (bucket.isEmpty()) continue;
+
+            usedBuckets++;
+            maxChainLength = Math.max(maxChainLength, bucket.size());
+        }
+
+        long estimatedBytes = HashTableStats.referenceArrayBytes(capacity)
+                + (oldTable == null ? 0 : HashTableStats.referenceArrayBytes(oldCapacity))
+                + (long) BUCKET_BYTES * allocatedBuckets + (long) ENTRY_BYTES * size;
+
+        return new HashTableStats(size, capacity, usedBuckets, 0, maxChainLength, estimatedBytes, statsRecorder);
+    }
+
     // return all the keys of the hash table
     public List<Key> keys() {
 
         List<Key> keys = new ArrayList<>(size);
-        for (LinkedList<Entry<Key, Value>> bucket : table)
+        for (int i = 0; i < bucketCount(); i++) {
+            LinkedList<Entry<Key, Value>> bucket = bucketAt(i);
             if (bucket != null)
                 for (Entry<Key, Value> entry : bucket)
                     keys.add(entry.key);
+        }
 
         return keys;
     }
@@ -208,63 +576,199 @@ public class HashTableSC<Key, Value> implements Iterable<Key> {
     public List<Value> values() {
 
         List<Value> values = new ArrayList<>(size);
-        for (LinkedList<Entry<Key, Value>> bucket : table)
+        for (int i = 0; i < bucketCount(); i++) {
+            LinkedList<Entry<Key, Value>> bucket = bucketAt(i);
             if (bucket != null)
                 for (Entry<Key, Value> entry : bucket)
                     values.add(entry.value);
+        }
 
         return values;
     }
 
+    // Calls the action for every entry, walking the buckets directly. Fails with a
+    // ConcurrentModificationException if a key is added or removed by the action.
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        final int expectedModificationCount = modificationCount;
+
+        for (int i = 0; i < bucketCount(); i++) {
+            LinkedList<Entry<Key, Value>> bucket = bucketAt(i);
+            if (bucket != null)
+                for (Entry<Key, Value> entry : bucket) action.accept(entry.key, entry.value);
+        }
+
+        if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+    }
+
+    // Live views of the keys and the values, backed by the table rather than copied as keys()
+    // and values() do. They can't be modified, and their iterators fail like iterator().
+    public Collection<Key> keysView() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Key> iterator() {
+                return HashTableSC.this.iterator();
+            }
+
+            @Override
+            public Spliterator<Key> spliterator() {
+                return HashTableSC.this.spliterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean contains(Object key) {
+                return key != null && hasKey((Key) key);
+            }
+        };
+    }
+
+    public Collection<Value> valuesView() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Value> iterator() {
+                return new BucketIterator<>(entry -> entry.value);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
     @Override
     public Iterator<Key> iterator() {
+        return new BucketIterator<>(entry -> entry.key);
+    }
 
-        final int elementCount = size();
+    // walks the entries bucket by bucket, returning what the extractor takes from each
+    private final class BucketIterator<T> implements Iterator<T> {
 
-        return new Iterator<>() {
+        private final Function<Entry<Key, Value>, T> extractor;
+        private final int expectedModificationCount = modificationCount;
+        private final int bucketCount = bucketCount();
 
-            int bucketIndex = 0;
-            Iterator<Entry<Key, Value>> bucketIterator = (table[bucketIndex] == null) ? null : table[bucketIndex].iterator();
+        private int bucketIndex = -1;
+        private Iterator<Entry<Key, Value>> bucketIterator;
 
-            @Override
-            public boolean hasNext() {
+        BucketIterator(Function<Entry<Key, Value>, T> extractor) {
+            this.extractor = extractor;
+        }
 
-                // no iterator or current iterator is empty
-                if (bucketIterator == null || !bucketIterator.hasNext()) {
+        @Override
+        public boolean hasNext() {
+            if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
 
-                    // search next buckets until a valid iterator is found
-                    while (++bucketIndex < capacity) {
+            // search the next non empty bucket
+            while (bucketIterator == null || !bucketIterator.hasNext()) {
+                if (++bucketIndex >= bucketCount) return false;
 
-                        if (table[bucketIndex] != null) {
+                LinkedList<Entry<Key, Value>> bucket = bucketAt(bucketIndex);
+                bucketIterator = (bucket == null) ? null : bucket.iterator();
+            }
 
-                            Iterator<Entry<Key, Value>> nextIterator = table[bucketIndex].iterator();
-                            // make sure the iterator actually has elements
-                            if (nextIterator.hasNext()) {
-                                bucketIterator = nextIterator;
-                                break;
-                            }
-                        }
-                    }
-                }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return extractor.apply(bucketIterator.next());
+        }
+    }
+
+    // Splits the buckets in halves, the buckets of the old table following the current ones
+    // during an incremental resize. The number of keys is only known for the whole table, a
+    // split part reports half of the keys of the part it was split from as an estimate.
+    @Override
+    public Spliterator<Key> spliterator() {
+        return new KeySpliterator(0, bucketCount(), size, true);
+    }
+
+    private final class KeySpliterator implements Spliterator<Key> {
+
+        // buckets left to visit
+        private int index;
+        private final int fence;
+        private long estimate;
+        // the estimate is the exact number of keys, only before any split
+        private boolean sized;
+        // entries left in the bucket tryAdvance is in
+        private Iterator<Entry<Key, Value>> bucketIterator;
+        private final int expectedModificationCount = modificationCount;
+
+        KeySpliterator(int index, int fence, long estimate, boolean sized) {
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.sized = sized;
+        }
 
-                return bucketIndex < capacity;
+        @Override
+        public boolean tryAdvance(Consumer<? super Key> action) {
+            while (bucketIterator == null || !bucketIterator.hasNext()) {
+                if (index >= fence) return false;
+
+                LinkedList<Entry<Key, Value>> bucket = bucketAt(index++);
+                bucketIterator = (bucket == null) ? null : bucket.iterator();
             }
 
-            @Override
-            public Key next() {
-                return bucketIterator.next().key;
+            if (estimate > 0) estimate--;
+            action.accept(bucketIterator.next().key);
+            if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Key> action) {
+            if (bucketIterator != null)
+                while (bucketIterator.hasNext()) action.accept(bucketIterator.next().key);
+
+            for (; index < fence; index++) {
+                LinkedList<Entry<Key, Value>> bucket = bucketAt(index);
+                if (bucket != null)
+                    for (Entry<Key, Value> entry : bucket) action.accept(entry.key);
             }
-        };
+
+            if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public Spliterator<Key> trySplit() {
+            // a bucket that is being walked stays with this part, the keys have no order to keep
+            int middle = (index + fence) >>> 1;
+            if (middle <= index) return null;
+
+            KeySpliterator prefix = new KeySpliterator(index, middle, estimate >>>= 1, false);
+            index = middle;
+            sized = false;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return (sized ? Spliterator.SIZED : 0) | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("{");
-        for (int i = 0; i < capacity; i++) {
-            if (table[i] == null) continue;
+        for (int i = 0; i < bucketCount(); i++) {
+            if (bucketAt(i) == null) continue;
 
-            for (Entry<Key, Value> entry : table[i])
+            for (Entry<Key, Value> entry : bucketAt(i))
                 sb.append(entry).append(", ");
         }
 
@@ -0,0 +1,314 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/*
+*   Hash table with separate chaining where the chains live in flat parallel arrays instead of
+*   LinkedList buckets of Entry objects.
+*
+*   Every entry is an index into the keys/vals/hashes/next arrays, next[i] links the entry to the
+*   following one in its chain and buckets[b] holds the index of the first entry of bucket b (-1
+*   if the bucket is empty). Removed entries are pushed to a free list threaded through next[]
+*   and reused by later insertions. No object is allocated per entry and lookups walk the chain
+*   with plain array reads, without building iterators.
+* */
+
+@SuppressWarnings("unchecked")
+public class HashTableSCFlat<Key, Value> implements Iterable<Key> {
+
+    private static final int DEFAULT_CAPACITY = 4;
+    private static final double DEFAULT_LOAD_FACTOR = .75;
+
+    // marks the end of a chain, an empty bucket and an empty free list
+    private static final int NIL = -1;
+
+    // used to keep track of load factor, in order to manage table resizing
+    private double maxLoadFactor;
+    // how many buckets the table has
+    private int capacity;
+    // capacity * max load factor
+    private int threshold;
+    // actual number of entries in the table
+    private int size;
+
+    // index of the first entry of every bucket
+    private int[] buckets;
+
+    // entry storage, the entry i is (keys[i], vals[i]) with hashes[i] = keys[i].hashCode()
+    private Object[] keys;
+    private Object[] vals;
+    private int[] hashes;
+    private int[] next;
+
+    // first never used entry slot
+    private int entryCount;
+    // head of the list of removed entries available for reuse
+    private int freeList = NIL;
+    // number of adds and removes that changed the keys, checked by the iterator
+    private int modificationCount;
+
+    public HashTableSCFlat() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashTableSCFlat(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashTableSCFlat(int capacity, double maxLoadFactor) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Illegal Capacity");
+        if (maxLoadFactor <= 0 || Double.isNaN(maxLoadFactor) || Double.isInfinite(maxLoadFactor))
+            throw new IllegalArgumentException("Illegal load factor");
+
+        this.maxLoadFactor = maxLoadFactor;
+        this.capacity = Hashing.tableSizeFor(capacity);
+        this.threshold = (int) (this.maxLoadFactor * this.capacity);
+
+        buckets = new int[this.capacity];
+        Arrays.fill(buckets, NIL);
+
+        int entryCapacity = threshold + 1;
+        keys = new Object[entryCapacity];
+        vals = new Object[entryCapacity];
+        hashes = new int[entryCapacity];
+        next = new int[entryCapacity];
+    }
+
+    // return the number of elements in the hash table
+    public int size() {
+        return size;
+    }
+
+    // return if the hash table is empty
+    public boolean empty() {
+        return size == 0;
+    }
+
+    // convert the hash value to an index of the table in the domain [0, capacity).
+    // the capacity is a power of two, so the hash is spread and then masked
+    private int normalizeIndex(int keyHash) {
+        return Hashing.spread(keyHash) & (capacity - 1);
+    }
+
+    // clears al the contents of the hash table
+    public void clear() {
+        Arrays.fill(buckets, NIL);
+        Arrays.fill(keys, 0, entryCount, null);
+        Arrays.fill(vals, 0, entryCount, null);
+        Arrays.fill(hashes, 0, entryCount, 0);
+        Arrays.fill(next, 0, entryCount, NIL);
+        entryCount = 0;
+        freeList = NIL;
+        size = 0;
+        modificationCount++;
+    }
+
+    // returns true depending on whether a key is in the hash table
+    public boolean hasKey(Key key) {
+        return seekEntry(key) != NIL;
+    }
+
+    // finds the index of the entry holding the key, otherwise returns NIL
+    private int seekEntry(Key key) {
+        int hash = key.hashCode();
+
+        for (int i = buckets[normalizeIndex(hash)]; i != NIL; i = next[i])
+            if (hashes[i] == hash && keys[i].equals(key)) return i;
+
+        return NIL;
+    }
+
+    // add a value to the hash table, if the key already exists update its value
+    // return null if there aren't previous value, or previous entry value if the data is updated
+    public Value add(Key key, Value value) {
+        if (key == null) throw new IllegalArgumentException("Null Key");
+
+        int hash = key.hashCode();
+        int bucketIndex = normalizeIndex(hash);
+
+        for (int i = buckets[bucketIndex]; i != NIL; i = next[i]) {
+            if (hashes[i] == hash && keys[i].equals(key)) {
+                Value oldValue = (Value) vals[i];
+                vals[i] = value;
+                return oldValue;
+            }
+        }
+
+        // link a new entry at the head of the bucket
+        int entry = allocateEntry();
+        keys[entry] = key;
+        vals[entry] = value;
+        hashes[entry] = hash;
+        next[entry] = buckets[bucketIndex];
+        buckets[bucketIndex] = entry;
+        modificationCount++;
+
+        if (++size > threshold) resizeTable();
+        return null;
+    }
+
+    // take an entry slot from the free list, or from the end of the storage
+    // growing it when it's full
+    private int allocateEntry() {
+        if (freeList != NIL) {
+            int entry = freeList;
+            freeList = next[entry];
+            return entry;
+        }
+
+        if (entryCount == keys.length) {
+            int newLength = 2 * keys.length;
+            keys = Arrays.copyOf(keys, newLength);
+            vals = Arrays.copyOf(vals, newLength);
+            hashes = Arrays.copyOf(hashes, newLength);
+            next = Arrays.copyOf(next, newLength);
+        }
+
+        return entryCount++;
+    }
+
+    // return the stored value of the key provided
+    // returns null if the key doesn't exist, or null if the value is exactly null
+    public Value get(Key key) {
+        if (key == null) return null;
+
+        int entry = seekEntry(key);
+        return entry == NIL ? null : (Value) vals[entry];
+    }
+
+    // remove a entry from the table given a key
+    // return the value of the removed entry, or null if that entry not exists
+    public Value remove(Key key) {
+        if (key == null) return null;
+
+        int hash = key.hashCode();
+        int bucketIndex = normalizeIndex(hash);
+
+        for (int i = buckets[bucketIndex], prev = NIL; i != NIL; prev = i, i = next[i]) {
+            if (hashes[i] == hash && keys[i].equals(key)) {
+
+                // unlink the entry from its chain
+                if (prev == NIL) buckets[bucketIndex] = next[i];
+                else next[prev] = next[i];
+
+                Value oldValue = (Value) vals[i];
+
+                // avoid loitering and give the slot back to the free list
+                keys[i] = null;
+                vals[i] = null;
+                next[i] = freeList;
+                freeList = i;
+
+                size--;
+                modificationCount++;
+                return oldValue;
+            }
+        }
+
+        return null;
+    }
+
+    // resizes the bucket array, entries stay where they are and are only relinked
+    // using their stored hashes
+    private void resizeTable() {
+
+        capacity *= 2;
+        threshold = (int) (capacity * maxLoadFactor);
+
+        int[] newBuckets = new int[capacity];
+        Arrays.fill(newBuckets, NIL);
+
+        for (int head : buckets) {
+            for (int i = head, following; i != NIL; i = following) {
+                following = next[i];
+
+                int bucketIndex = normalizeIndex(hashes[i]);
+                next[i] = newBuckets[bucketIndex];
+                newBuckets[bucketIndex] = i;
+            }
+        }
+
+        buckets = newBuckets;
+    }
+
+    // return all the keys of the hash table
+    public List<Key> keys() {
+
+        List<Key> keyList = new ArrayList<>(size);
+        for (int i = 0; i < entryCount; i++)
+            if (keys[i] != null) keyList.add((Key) keys[i]);
+
+        return keyList;
+    }
+
+    // return all the values within the hash table
+    public List<Value> values() {
+
+        List<Value> valueList = new ArrayList<>(size);
+        for (int i = 0; i < entryCount; i++)
+            if (keys[i] != null) valueList.add((Value) vals[i]);
+
+        return valueList;
+    }
+
+    @Override
+    public Iterator<Key> iterator() {
+
+        return new Iterator<>() {
+
+            int index, keysLeft = size;
+            // entry returned by the last call to next, NIL once it's removed
+            int lastReturned = NIL;
+            int expectedModificationCount = modificationCount;
+
+            @Override
+            public boolean hasNext() {
+                if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+                return keysLeft != 0;
+            }
+
+            @Override
+            public Key next() {
+                if (!hasNext()) throw new NoSuchElementException();
+
+                while (keys[index] == null) index++;
+                keysLeft--;
+                lastReturned = index;
+                return (Key) keys[index++];
+            }
+
+            // removes the last key returned by next, the slot it frees is behind the iterator
+            // so a later add reusing it is not returned
+            @Override
+            public void remove() {
+                if (lastReturned == NIL) throw new IllegalStateException();
+                if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+
+                HashTableSCFlat.this.remove((Key) keys[lastReturned]);
+                expectedModificationCount = modificationCount;
+                lastReturned = NIL;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        for (int i = 0; i < entryCount; i++) {
+            if (keys[i] == null) continue;
+            sb.append(keys[i]).append(" => ").append(vals[i]).append(", ");
+        }
+
+        if (sb.length() > 2)
+            // Remove the trailing comma and space
+            sb.setLength(sb.length() - 2);
+
+        sb.append("}");
+        return sb.toString();
+    }
+}
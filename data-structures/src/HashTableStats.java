@@ -0,0 +1,186 @@
+import java.util.Arrays;
+
+/*
+*   Snapshot of the health of a hash table, returned by the stats() method of HashTableSC and
+*   of the open addressing tables.
+*
+*   Two kinds of figures are reported:
+*   - structural ones, computed when the snapshot is taken by walking the table: size,
+*     capacity, used buckets, tombstones, the longest chain/probe sequence of a stored key and
+*     an estimate of the bytes retained by the table itself (not by the keys and values).
+*   - counters kept by the table while it's used: the probe lengths of a sample of the get()
+*     calls, including the misses, and the number of resizes and the time spent on them.
+*     They are only kept once recordStats(true) is called on the table, until then the
+*     histogram is empty and the resize figures are 0. A table that doesn't record pays a
+*     null check per get(); one that does pays a mask test more, a lookup is sampled when
+*     the cell (or bucket) where it ends is a multiple of SAMPLE_RATE, and only the sampled
+*     ones write to memory. Since it samples positions rather than keys, a cluster of
+*     colliding keys is sampled in proportion to the cells it covers.
+*
+*   The probe length of a lookup is the number of cells (open addressing), groups
+*   (HashTableSwiss), buckets (HashTableCuckoo) or entries (separate chaining) it inspected. A
+*   growing average with a stable load factor points to tombstones degrading the lookups, a
+*   large maximum with a low load factor to a hashCode() that clusters the keys.
+* */
+
+public final class HashTableStats {
+
+    // one cell or bucket in SAMPLE_RATE records the probe lengths of the lookups ending there
+    public static final int SAMPLE_RATE = 64;
+
+    // the histogram has a bin for every probe length in [0, HISTOGRAM_SIZE - 1),
+    // the last bin counts the longer ones
+    public static final int HISTOGRAM_SIZE = 33;
+
+    // object layout assumed by the estimates, a 64 bit JVM with compressed references
+    static final int OBJECT_HEADER_BYTES = 12;
+    static final int ARRAY_HEADER_BYTES = 16;
+    static final int REFERENCE_BYTES = 4;
+
+    // counters updated by a table while it's used, not thread safe like the tables themselves
+    public static final class Recorder {
+
+        private final long[] probeHistogram = new long[HISTOGRAM_SIZE];
+        private int resizeCount;
+        private long resizeNanos;
+
+        // called on every lookup with the cell or bucket where it ended,
+        // only the sampled ones are recorded
+        public void recordLookup(int index, int probes) {
+            if (isSampled(index)) probeHistogram[Math.min(probes, HISTOGRAM_SIZE - 1)]++;
+        }
+
+        // whether a lookup ending at the index is recorded, for the tables that
+        // have to compute the probe length apart from the lookup
+        public boolean isSampled(int index) {
+            return (index & (SAMPLE_RATE - 1)) == 0;
+        }
+
+        public void recordResize(long nanos) {
+            resizeCount++;
+            resizeNanos += nanos;
+        }
+    }
+
+    private final int size;
+    private final int capacity;
+    private final int usedBuckets;
+    private final int tombstones;
+    private final int maxChainLength;
+    private final long estimatedBytes;
+
+    private final long[] probeHistogram;
+    private final int resizeCount;
+    private final long resizeNanos;
+
+    // the recorder is null when the table doesn't record its counters
+    HashTableStats(int size, int capacity, int usedBuckets, int tombstones, int maxChainLength,
+                   long estimatedBytes, Recorder recorder) {
+        this.size = size;
+        this.capacity = capacity;
+        this.usedBuckets = usedBuckets;
+        this.tombstones = tombstones;
+        this.maxChainLength = maxChainLength;
+        this.estimatedBytes = estimatedBytes;
+
+        this.probeHistogram = recorder == null ? new long[HISTOGRAM_SIZE] : recorder.probeHistogram.clone();
+        this.resizeCount = recorder == null ? 0 : recorder.resizeCount;
+        this.resizeNanos = recorder == null ? 0 : recorder.resizeNanos;
+    }
+
+    // bytes of an array of references of the given length, padded to 8 bytes
+    static long referenceArrayBytes(int length) {
+        return align(ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * length);
+    }
+
+    // bytes of an array of primitives of the given length and element size, padded to 8 bytes
+    static long primitiveArrayBytes(int length, int elementBytes) {
+        return align(ARRAY_HEADER_BYTES + (long) elementBytes * length);
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    // number of keys in the table
+    public int size() {
+        return size;
+    }
+
+    // number of buckets (separate chaining) or cells (open addressing)
+    public int capacity() {
+        return capacity;
+    }
+
+    // non empty buckets, or cells holding a key or a tombstone
+    public int usedBuckets() {
+        return usedBuckets;
+    }
+
+    // cells marked as deleted, always 0 for separate chaining
+    public int tombstones() {
+        return tombstones;
+    }
+
+    // fraction of the used buckets that are tombstones
+    public double tombstoneRatio() {
+        return usedBuckets == 0 ? 0 : (double) tombstones / usedBuckets;
+    }
+
+    public double loadFactor() {
+        return capacity == 0 ? 0 : (double) size / capacity;
+    }
+
+    // longest chain (separate chaining) or longest probe sequence needed to reach a stored key
+    public int maxChainLength() {
+        return maxChainLength;
+    }
+
+    // estimate of the bytes of the arrays and nodes of the table, keys and values excluded
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    // number of sampled lookups per probe length, see HISTOGRAM_SIZE
+    public long[] probeHistogram() {
+        return probeHistogram.clone();
+    }
+
+    public long sampledLookups() {
+        long total = 0;
+        for (long count : probeHistogram) total += count;
+        return total;
+    }
+
+    // average probe length of the sampled lookups, the last bin counts as HISTOGRAM_SIZE - 1
+    public double averageProbeLength() {
+        long total = 0, sampled = 0;
+        for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+            total += i * probeHistogram[i];
+            sampled += probeHistogram[i];
+        }
+        return sampled == 0 ? 0 : (double) total / sampled;
+    }
+
+    public int resizeCount() {
+        return resizeCount;
+    }
+
+    public long resizeNanos() {
+        return resizeNanos;
+    }
+
+    @Override
+    public String toString() {
+        // the histogram is printed up to its last non empty bin
+        int bins = HISTOGRAM_SIZE;
+        while (bins > 0 && probeHistogram[bins - 1] == 0) bins--;
+
+        return "HashTableStats{size=" + size + ", capacity=" + capacity + ", usedBuckets=" + usedBuckets
+                + ", tombstones=" + tombstones + ", maxChainLength=" + maxChainLength
+                + ", estimatedBytes=" + estimatedBytes + ", sampledLookups=" + sampledLookups()
+                + ", averageProbeLength=" + String.format("%.2f", averageProbeLength())
+                + ", probeHistogram=" + Arrays.toString(Arrays.copyOf(probeHistogram, bins))
+                + ", resizeCount=" + resizeCount + ", resizeMillis=" + resizeNanos / 1_000_000 + "}";
+    }
+}
@@ -0,0 +1,278 @@
+import java.util.Arrays;
+
+/**
+ * An implementation of a hash-table using open addressing with group probing, in the style of
+ * the "Swiss table".
+ *
+ * Besides the keys and values, every cell has a one byte control tag: EMPTY, DELETED or, for a
+ * used cell, the 7 lower bits of the key hash (h2). Cells are organized in groups of 8 whose
+ * control bytes are packed in a single long, so a probe loads one word and finds the candidate
+ * cells of the whole group with SWAR (SIMD within a register) bit tricks. Only the cells whose
+ * tag equals h2 are compared with equals(), which rejects almost every mismatch without touching
+ * the key. The remaining bits of the hash (h1) select the first group, and groups are probed
+ * with the same triangular sequence as HashTableQuadraticProbing, which visits every group of a
+ * power of two table.
+ *
+ * The full hash of every cell is stored too (see hashes), but only a resize reads it: comparing
+ * it in the lookups would load one more cache line to reject what h2 already rejects.
+ *
+ * A removed cell becomes EMPTY again when its group still has an EMPTY cell, since no probe
+ * sequence can have continued past such a group, and DELETED otherwise.
+ */
+@SuppressWarnings("unchecked")
+public class HashTableSwiss<Key, Value> extends HashTableOpenAddressingBase<Key, Value> {
+
+    // cells per group, one control byte each
+    private static final int GROUP_SIZE = 8;
+
+    // control bytes
+    private static final int EMPTY = 0x80;   // 1000 0000
+    private static final int DELETED = 0xFE; // 1111 1110
+
+    // SWAR constants, the lowest and the highest bit of every byte
+    private static final long LSB = 0x0101010101010101L;
+    private static final long MSB = 0x8080808080808080L;
+    private static final long EMPTY_GROUP = LSB * EMPTY;
+
+    // control bytes, 8 per long, group g covers the cells [g*8, g*8 + 8)
+    private long[] control;
+
+    public HashTableSwiss() {
+        super();
+        control = emptyControl(capacity);
+    }
+
+    public HashTableSwiss(int capacity) {
+        super(capacity);
+        control = emptyControl(this.capacity);
+    }
+
+    public HashTableSwiss(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+        control = emptyControl(this.capacity);
+    }
+
+    private static long[] emptyControl(int capacity) {
+        long[] control = new long[capacity / GROUP_SIZE];
+        Arrays.fill(control, EMPTY_GROUP);
+        return control;
+    }
+
+    // the probing is done over groups, nothing to set up
+    @Override
+    protected void setupProbing(Key key, int hash) {}
+
+    // triangular numbers over the groups, see HashTableQuadraticProbing
+    @Override
+    protected int probe(int x) {
+        return (x * x + x) >> 1;
+    }
+
+    // a power of two with at least one full group
+    @Override
+    protected void adjustCapacity() {
+        capacity = Hashing.tableSizeFor(Math.max(GROUP_SIZE, capacity));
+    }
+
+    // ----------------------------------------- SWAR helpers ------------------------------------------
+
+    // bit 7 of every byte of the word equal to b (may report false positives
+    // above a real match, they are filtered out by the key comparison)
+    private static long matchByte(long word, int b) {
+        long x = word ^ (LSB * b);
+        return (x - LSB) & ~x & MSB;
+    }
+
+    // bit 7 of every EMPTY byte
+    private static long matchEmpty(long word) {
+        return word & ~(word << 6) & MSB;
+    }
+
+    // bit 7 of every EMPTY or DELETED byte
+    private static long matchEmptyOrDeleted(long word) {
+        return word & ~(word << 7) & MSB;
+    }
+
+    // position inside the group of the lowest match
+    private static int lowestMatch(long matches) {
+        return Long.numberOfTrailingZeros(matches) >>> 3;
+    }
+
+    private void setControl(int index, int b) {
+        int group = index / GROUP_SIZE, shift = (index % GROUP_SIZE) * 8;
+        control[group] = (control[group] & ~(0xFFL << shift)) | ((long) b << shift);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    @Override
+    protected void resizeTable() {
+        increaseCapacity();
+        adjustCapacity();
+
+        threshold = (int) (capacity * loadFactor);
+
+        Key[] oldKeyTable = keys;
+        Value[] oldValueTable = values;
+        int[] oldHashTable = hashes;
+
+        keys = (Key[]) new Object[capacity];
+        values = (Value[]) new Object[capacity];
+        hashes = new int[capacity];
+        control = emptyControl(capacity);
+
+        // Reset the key count and buckets used since we are about to
+        // re-insert all the keys into the hash-table.
+        keyCount = usedBuckets = 0;
+
+        for (int i = 0; i < oldKeyTable.length; i++) {
+            if (oldKeyTable[i] != null) put(oldKeyTable[i], oldValueTable[i], oldHashTable[i]);
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(control, EMPTY_GROUP);
+    }
+
+    // Place a key-value pair into the hash-table. If the value already exists
+    // then the value is updated.
+    @Override
+    public Value insert(Key key, Value value) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+        if (usedBuckets >= threshold) resize();
+
+        return put(key, value, Hashing.spread(key.hashCode()));
+    }
+
+    // place a key-value pair given its spread hash, without checking the threshold
+    private Value put(Key key, Value value, int hash) {
+        final int h2 = hash & 0x7F, groupMask = control.length - 1;
+        final int offset = (hash >>> 7) & groupMask;
+
+        // first EMPTY or DELETED cell of the probe sequence
+        int free = -1;
+
+        for (int group = offset, x = 1 ;; group = (offset + probe(x++)) & groupMask) {
+            long word = control[group];
+
+            for (long matches = matchByte(word, h2); matches != 0; matches &= matches - 1) {
+                int i = group * GROUP_SIZE + lowestMatch(matches);
+
+                // The key we're trying to insert already exists in the hash-table,
+                // so update its value with the most recent value
+                if (keys[i] != null && keys[i].equals(key)) {
+                    Value oldValue = values[i];
+                    values[i] = value;
+                    modificationCount++;
+                    return oldValue;
+                }
+            }
+
+            if (free == -1) {
+                long available = matchEmptyOrDeleted(word);
+                if (available != 0) free = group * GROUP_SIZE + lowestMatch(available);
+            }
+
+            // a group with an EMPTY cell ends every probe sequence going through it
+            if (matchEmpty(word) != 0) break;
+        }
+
+        int freeControl = (int) (control[free / GROUP_SIZE] >>> ((free % GROUP_SIZE) * 8)) & 0xFF;
+        if (freeControl == EMPTY) usedBuckets++;
+
+        setControl(free, h2);
+        keys[free] = key;
+        values[free] = value;
+        hashes[free] = hash;
+
+        keyCount++;
+        modificationCount++;
+        return null;
+    }
+
+    // Get the value associated with the input key
+    // returns null if the value is null and also returns
+    // null if the key does not exists
+    @Override
+    public Value get(Key key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+
+        int i = indexOf(key, statsRecorder);
+        return i == -1 ? null : values[i];
+    }
+
+    // Removes a key from the map and returns the value.
+    // NOTE: returns null if the value is null AND also returns
+    // null if the key does not exists.
+    @Override
+    public Value remove(Key key) {
+        if (key == null) throw new IllegalArgumentException("Null key");
+
+        int i = indexOf(key, null);
+        if (i == -1) return null;
+
+        Value oldValue = values[i];
+        keys[i] = null;
+        values[i] = null;
+
+        // if the group still has an EMPTY cell no lookup ever probed past it,
+        // so the cell can be freed instead of marked as deleted
+        if (matchEmpty(control[i / GROUP_SIZE]) != 0) {
+            setControl(i, EMPTY);
+            usedBuckets--;
+        } else {
+            setControl(i, DELETED);
+        }
+
+        keyCount--;
+        modificationCount++;
+        shrinkIfSparse();
+        return oldValue;
+    }
+
+    // the probing goes over groups, so this is the number of groups a
+    // lookup visits to reach the key stored at cell i
+    @Override
+    protected int probeLength(int i) {
+        final int hash = hashes[i];
+        final int groupMask = control.length - 1, offset = (hash >>> 7) & groupMask;
+
+        int x = 1;
+        for (int group = offset; group != i / GROUP_SIZE && x <= control.length; group = (offset + probe(x++)) & groupMask);
+        return x;
+    }
+
+    // the control words are retained on top of the keys and values
+    @Override
+    protected long estimatedBytes() {
+        return super.estimatedBytes() + HashTableStats.primitiveArrayBytes(control.length, Long.BYTES);
+    }
+
+    // Finds the cell holding the key, or -1 if it does not exist. The number of groups
+    // probed is recorded when a recorder is given, get() passes the table's one
+    private int indexOf(Key key, HashTableStats.Recorder recorder) {
+        final int hash = Hashing.spread(key.hashCode());
+        final int h2 = hash & 0x7F, groupMask = control.length - 1;
+        final int offset = (hash >>> 7) & groupMask;
+
+        for (int group = offset, x = 1 ;; group = (offset + probe(x++)) & groupMask) {
+            long word = control[group];
+
+            for (long matches = matchByte(word, h2); matches != 0; matches &= matches - 1) {
+                int i = group * GROUP_SIZE + lowestMatch(matches);
+                if (keys[i] != null && keys[i].equals(key)) {
+                    if (recorder != null) recorder.recordLookup(group, x);
+                    return i;
+                }
+            }
+
+            if (matchEmpty(word) != 0) {
+                if (recorder != null) recorder.recordLookup(group, x);
+                return -1;
+            }
+        }
+    }
+
+}
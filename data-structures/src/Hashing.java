@@ -0,0 +1,34 @@
+/*
+*   Helpers shared by the hash tables to turn hash codes into table indexes.
+*
+*   All the tables keep power of two capacities, so an index is obtained by masking the low bits
+*   of the hash instead of an integer division. Masking alone would only look at the low bits of
+*   hashCode(), which are poor for many keys (Integer keys that are multiples of a power of two,
+*   Float/Double keys, ...), so the hash is first spread with the murmur3 finalizer to make every
+*   input bit affect the low bits.
+* */
+
+public final class Hashing {
+
+    // largest power of two that fits in an int
+    public static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private Hashing() {}
+
+    // murmur3 32 bit finalizer (fmix32)
+    public static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    // smallest power of two greater or equal to n (1 for n <= 1)
+    public static int tableSizeFor(int n) {
+        if (n <= 1) return 1;
+        if (n >= MAXIMUM_CAPACITY) return MAXIMUM_CAPACITY;
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+}
@@ -0,0 +1,413 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/*
+*   Base class for int -> int hashtables with an open addressing collision resolution method.
+*
+*   This is the primitive counterpart of HashTableOpenAddressingBase, subclasses only dictate
+*   how the probing occurs. Keys and values are stored interleaved in a single int array
+*   (key at 2*i, value at 2*i+1) so a probe reads the key and its value from the same cache
+*   line and nothing is boxed on insert or get.
+*
+*   Empty and deleted cells are encoded with sentinel keys (EMPTY and TOMBSTONE). Since those
+*   are valid int keys too, the entries whose key is a sentinel are kept aside in dedicated fields.
+* */
+
+public abstract class IntIntHashTable {
+
+    // Sentinel keys used to mark free and deleted cells. EMPTY is 0 so a freshly
+    // allocated table doesn't need to be filled.
+    protected static final int EMPTY = 0;
+    protected static final int TOMBSTONE = Integer.MIN_VALUE;
+
+    // used to set the maximum load factor of the hashtable
+    protected double loadFactor;
+    // used to register the total number of cells of the hashtable
+    protected int capacity;
+    // used to maintain the capacity threshold of the hashtable
+    protected int threshold;
+    // used to count the total number of used cells inside the table
+    // including cells marked as deleted
+    protected int usedBuckets;
+    // used to track the number of unique keys inside the hashtable
+    protected int keyCount;
+    // structural changes (keys added or removed, entries moved by a resize or by the lazy
+    // relocation of an insertion), keyIterator and forEach fail when it changes under them
+    protected int modificationCount;
+    // forEach calls in progress, the insertions don't resize or relocate entries while one runs
+    private int iterations;
+
+    // interleaved key-value pairs
+    protected int[] table;
+
+    // value returned by the lookups when a key does not exist
+    protected final int noEntryValue;
+
+    // entries whose key collides with one of the sentinels
+    protected boolean hasEmptyKey, hasTombstoneKey;
+    protected int emptyKeyValue, tombstoneKeyValue;
+
+    // default hashtable parameters
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final double DEFAULT_LOAD_FACTOR = 0.65;
+
+    // constructors
+    protected IntIntHashTable() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    protected IntIntHashTable(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    protected IntIntHashTable(int capacity, double loadFactor) {
+        this(capacity, loadFactor, 0);
+    }
+
+    protected IntIntHashTable(int capacity, double loadFactor, int noEntryValue) {
+        if (capacity <= 0) throw new IllegalArgumentException("Illegal capacity: " + capacity);
+
+        if (loadFactor <= 0 || loadFactor >= 1 || Double.isNaN(loadFactor))
+            throw new IllegalArgumentException("Illegal loadFactor: " + loadFactor);
+
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        this.capacity = Math.max(DEFAULT_CAPACITY, capacity);
+        adjustCapacity();
+        threshold = (int) (this.capacity * loadFactor);
+
+        table = new int[2 * this.capacity];
+    }
+
+    // the actual method to do the probing
+    protected abstract int probe(int x);
+
+    // Adjusts the capacity of the hash table after it's been made larger, the size of
+    // the table controls the functionality of the probing function. Implementations
+    // must leave a power of two capacity, or override normalizeIndex accordingly.
+    protected abstract void adjustCapacity();
+
+    // increase the capacity of the hashtable
+    protected void increaseCapacity() {
+        capacity = (2 * capacity);
+    }
+
+    // double the size of the hash-table
+    protected void resizeTable() {
+        increaseCapacity();
+        adjustCapacity();
+
+        threshold = (int) (capacity * loadFactor);
+
+        int[] oldTable = table;
+        table = new int[2 * capacity];
+
+        // Reset the key count and buckets used since we are about to
+        // re-insert all the keys stored in the table
+        usedBuckets = 0;
+        keyCount = (hasEmptyKey ? 1 : 0) + (hasTombstoneKey ? 1 : 0);
+
+        for (int i = 0; i < oldTable.length; i += 2) {
+            int key = oldTable[i];
+            if (key != EMPTY && key != TOMBSTONE) insert(key, oldTable[i + 1]);
+        }
+    }
+
+    // clear the hashtable information
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        hasEmptyKey = hasTombstoneKey = false;
+        keyCount = usedBuckets = 0;
+        modificationCount++;
+    }
+
+    // returns the number of keys currently inside the hashtable
+    public int size() {
+        return keyCount;
+    }
+
+    // return the capacity of the hashtable
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // return true/false depending on whether the hashtable is empty
+    public boolean isEmpty() {
+        return keyCount == 0;
+    }
+
+    // converts a hash value to an index in the domain [0, capacity). The capacity
+    // is kept a power of two so this is a mask of the low bits. Callers spread the
+    // key hash first (see Hashing.spread) so that the low bits depend on the whole hash.
+    protected int normalizeIndex(int keyHash) {
+        return keyHash & (capacity - 1);
+    }
+
+    // returns true/false on whether a given key exists within the hashtable
+    public boolean containsKey(int key) {
+        if (key == EMPTY) return hasEmptyKey;
+        if (key == TOMBSTONE) return hasTombstoneKey;
+        return indexOf(key) != -1;
+    }
+
+    // Place a key-value pair into the hash-table. If the key already exists
+    // then the value is updated. Returns the previous value or noEntryValue.
+    public int insert(int key, int value) {
+        if (key == EMPTY || key == TOMBSTONE) return insertSentinelKey(key, value);
+        // a forEach in progress fails on the insertion of a new key anyway, without
+        // resizing under it the update of an existing key can go on
+        if (usedBuckets >= threshold && iterations == 0) resizeTable();
+
+        final int offset = normalizeIndex(Hashing.spread(key));
+
+        for (int i = offset, j = -1, x = 1 ;; i = normalizeIndex(offset + probe(x++))) {
+            int current = table[2 * i];
+
+            // the current slot was previously deleted
+            if (current == TOMBSTONE) {
+                if (j == -1) j = i;
+            }
+            // current cell is free so an insertion can occur, reusing the first
+            // deleted cell found along the way if there is one
+            else if (current == EMPTY) {
+                if (j == -1) {
+                    usedBuckets++;
+                    j = i;
+                }
+
+                keyCount++;
+                modificationCount++;
+                table[2 * j] = key;
+                table[2 * j + 1] = value;
+                return noEntryValue;
+            }
+            // The key already exists, update its value and move it
+            // closer to the start of the probe sequence if possible
+            else if (current == key) {
+                int oldValue = table[2 * i + 1];
+
+                if (j == -1 || iterations > 0) {
+                    table[2 * i + 1] = value;
+                } else {
+                    table[2 * i] = TOMBSTONE;
+                    table[2 * j] = key;
+                    table[2 * j + 1] = value;
+                    modificationCount++;
+                }
+
+                return oldValue;
+            }
+        }
+    }
+
+    // Get the value associated with the input key,
+    // returns noEntryValue if the key does not exists
+    public int get(int key) {
+        if (key == EMPTY) return hasEmptyKey ? emptyKeyValue : noEntryValue;
+        if (key == TOMBSTONE) return hasTombstoneKey ? tombstoneKeyValue : noEntryValue;
+
+        int i = indexOf(key);
+        return i == -1 ? noEntryValue : table[2 * i + 1];
+    }
+
+    // Removes a key from the map and returns the value,
+    // returns noEntryValue if the key does not exists
+    public int remove(int key) {
+        if (key == EMPTY || key == TOMBSTONE) return removeSentinelKey(key);
+
+        final int offset = normalizeIndex(Hashing.spread(key));
+
+        for (int i = offset, x = 1 ;; i = normalizeIndex(offset + probe(x++))) {
+            int current = table[2 * i];
+
+            // Key was not found in hash-table.
+            if (current == EMPTY) return noEntryValue;
+
+            // The key we want to remove is in the hash-table!
+            if (current == key) {
+                keyCount--;
+                modificationCount++;
+                int oldValue = table[2 * i + 1];
+                table[2 * i] = TOMBSTONE;
+                table[2 * i + 1] = 0;
+                return oldValue;
+            }
+        }
+    }
+
+    // Finds the cell holding the key, or -1 if it does not exist. Unlike the insertions,
+    // a lookup doesn't relocate the entry, so it doesn't disturb the iterations
+    private int indexOf(int key) {
+        final int offset = normalizeIndex(Hashing.spread(key));
+
+        for (int i = offset, x = 1 ;; i = normalizeIndex(offset + probe(x++))) {
+            int current = table[2 * i];
+
+            // the deleted cells are skipped, a sentinel key is never looked up here
+            if (current == EMPTY) return -1;
+            if (current == key) return i;
+        }
+    }
+
+    private int insertSentinelKey(int key, int value) {
+        int oldValue;
+
+        if (key == EMPTY) {
+            oldValue = hasEmptyKey ? emptyKeyValue : noEntryValue;
+            if (!hasEmptyKey) {
+                keyCount++;
+                modificationCount++;
+            }
+            hasEmptyKey = true;
+            emptyKeyValue = value;
+        } else {
+            oldValue = hasTombstoneKey ? tombstoneKeyValue : noEntryValue;
+            if (!hasTombstoneKey) {
+                keyCount++;
+                modificationCount++;
+            }
+            hasTombstoneKey = true;
+            tombstoneKeyValue = value;
+        }
+
+        return oldValue;
+    }
+
+    private int removeSentinelKey(int key) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) return noEntryValue;
+            hasEmptyKey = false;
+            keyCount--;
+            modificationCount++;
+            return emptyKeyValue;
+        } else {
+            if (!hasTombstoneKey) return noEntryValue;
+            hasTombstoneKey = false;
+            keyCount--;
+            modificationCount++;
+            return tombstoneKeyValue;
+        }
+    }
+
+    // returns the keys found in the hash table
+    public int[] keys() {
+        int[] hashtableKeys = new int[keyCount];
+        int n = 0;
+
+        if (hasEmptyKey) hashtableKeys[n++] = EMPTY;
+        if (hasTombstoneKey) hashtableKeys[n++] = TOMBSTONE;
+
+        for (int i = 0; i < table.length; i += 2)
+            if (table[i] != EMPTY && table[i] != TOMBSTONE) hashtableKeys[n++] = table[i];
+
+        return hashtableKeys;
+    }
+
+    // returns the non-unique values found in the hashtable,
+    // in the same order as keys()
+    public int[] values() {
+        int[] hashtableValues = new int[keyCount];
+        int n = 0;
+
+        if (hasEmptyKey) hashtableValues[n++] = emptyKeyValue;
+        if (hasTombstoneKey) hashtableValues[n++] = tombstoneKeyValue;
+
+        for (int i = 0; i < table.length; i += 2)
+            if (table[i] != EMPTY && table[i] != TOMBSTONE) hashtableValues[n++] = table[i + 1];
+
+        return hashtableValues;
+    }
+
+    // receives the entries of forEach, without boxing them
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    // Calls the action for every entry, in the same order as keys(), walking the table directly.
+    // Fails with a ConcurrentModificationException as soon as the action adds or removes a key.
+    // The action can look keys up and update the values of existing keys, the entries are not
+    // relocated while the table is walked.
+    public void forEach(EntryConsumer action) {
+        final int expectedModificationCount = modificationCount;
+        iterations++;
+
+        try {
+            if (hasEmptyKey) action.accept(EMPTY, emptyKeyValue);
+            if (hasTombstoneKey) action.accept(TOMBSTONE, tombstoneKeyValue);
+            if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+
+            for (int i = 0; i < table.length; i += 2) {
+                if (table[i] == EMPTY || table[i] == TOMBSTONE) continue;
+
+                action.accept(table[i], table[i + 1]);
+                if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+            }
+        } finally {
+            iterations--;
+        }
+    }
+
+    // Iterates over the keys in the same order as keys(), without copying or boxing them.
+    // Fails with a ConcurrentModificationException once the table is modified, the lookups
+    // don't modify it.
+    public PrimitiveIterator.OfInt keyIterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            // the sentinel keys come first
+            boolean emptyKeyLeft = hasEmptyKey, tombstoneKeyLeft = hasTombstoneKey;
+            int index, keysLeft = keyCount;
+            final int expectedModificationCount = modificationCount;
+
+            @Override
+            public boolean hasNext() {
+                if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+                return keysLeft != 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) throw new NoSuchElementException();
+                keysLeft--;
+
+                if (emptyKeyLeft) {
+                    emptyKeyLeft = false;
+                    return EMPTY;
+                }
+                if (tombstoneKeyLeft) {
+                    tombstoneKeyLeft = false;
+                    return TOMBSTONE;
+                }
+
+                while (table[index] == EMPTY || table[index] == TOMBSTONE) index += 2;
+                int key = table[index];
+                index += 2;
+                return key;
+            }
+        };
+    }
+
+    // return a string view of this hashtable
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("{");
+        if (hasEmptyKey) sb.append(EMPTY).append(" => ").append(emptyKeyValue).append(", ");
+        if (hasTombstoneKey) sb.append(TOMBSTONE).append(" => ").append(tombstoneKeyValue).append(", ");
+
+        for (int i = 0; i < table.length; i += 2)
+            if (table[i] != EMPTY && table[i] != TOMBSTONE)
+                sb.append(table[i]).append(" => ").append(table[i + 1]).append(", ");
+
+        if (sb.length() > 2){
+            // Remove the trailing comma and space
+            sb.setLength(sb.length() - 2);
+        }
+        sb.append("}");
+
+        return sb.toString();
+    }
+}
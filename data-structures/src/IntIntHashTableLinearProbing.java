@@ -0,0 +1,38 @@
+/**
+ * An implementation of an int -> int hash-table using open addressing with linear probing as a
+ * collision resolution method.
+ */
+public class IntIntHashTableLinearProbing extends IntIntHashTable {
+
+    // This is the linear constant used in the linear probing, it must be odd so
+    // that GCD(capacity, LINEAR_CONSTANT) = 1 with a power of two capacity
+    private static final int LINEAR_CONSTANT = 1;
+
+    public IntIntHashTableLinearProbing() {
+        super();
+    }
+
+    public IntIntHashTableLinearProbing(int capacity) {
+        super(capacity);
+    }
+
+    public IntIntHashTableLinearProbing(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+    }
+
+    public IntIntHashTableLinearProbing(int capacity, double loadFactor, int noEntryValue) {
+        super(capacity, loadFactor, noEntryValue);
+    }
+
+    @Override
+    protected int probe(int x) {
+        return x * LINEAR_CONSTANT;
+    }
+
+    // Adjust the capacity to a power of two, relatively prime to the linear constant.
+    @Override
+    protected void adjustCapacity() {
+        capacity = Hashing.tableSizeFor(capacity);
+    }
+
+}
@@ -0,0 +1,39 @@
+/**
+ * An implementation of an int -> int hash-table using open addressing with quadratic probing as
+ * a collision resolution method.
+ *
+ * Uses the same probing function as HashTableQuadraticProbing: H(k, x) = h(k) + (x + x^2) / 2
+ * mod 2^n, which visits every cell of a table whose capacity is a power of two.
+ */
+public class IntIntHashTableQuadraticProbing extends IntIntHashTable {
+
+    public IntIntHashTableQuadraticProbing() {
+        super();
+    }
+
+    public IntIntHashTableQuadraticProbing(int capacity) {
+        super(capacity);
+    }
+
+    public IntIntHashTableQuadraticProbing(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+    }
+
+    public IntIntHashTableQuadraticProbing(int capacity, double loadFactor, int noEntryValue) {
+        super(capacity, loadFactor, noEntryValue);
+    }
+
+    @Override
+    protected int probe(int x) {
+        // Quadratic probing function (x^2+x)/2
+        return (x * x + x) >> 1;
+    }
+
+    // Adjust the capacity of the hashtable to be a power of two.
+    // Doubling in increaseCapacity keeps it that way.
+    @Override
+    protected void adjustCapacity() {
+        capacity = Hashing.tableSizeFor(capacity);
+    }
+
+}
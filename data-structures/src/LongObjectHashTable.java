@@ -0,0 +1,418 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/*
+*   Base class for long -> Object hashtables with an open addressing collision resolution method.
+*
+*   This is the primitive keyed counterpart of HashTableOpenAddressingBase, subclasses only
+*   dictate how the probing occurs. Keys live in a long array so they are never boxed and a
+*   probe compares primitives instead of calling equals() on a boxed Long.
+*
+*   Empty and deleted cells are encoded with sentinel keys (EMPTY and TOMBSTONE). Since those
+*   are valid long keys too, the entries whose key is a sentinel are kept aside in dedicated fields.
+* */
+
+@SuppressWarnings("unchecked")
+public abstract class LongObjectHashTable<Value> {
+
+    // Sentinel keys used to mark free and deleted cells. EMPTY is 0 so a freshly
+    // allocated table doesn't need to be filled.
+    protected static final long EMPTY = 0L;
+    protected static final long TOMBSTONE = Long.MIN_VALUE;
+
+    // used to set the maximum load factor of the hashtable
+    protected double loadFactor;
+    // used to register the total number of cells of the hashtable
+    protected int capacity;
+    // used to maintain the capacity threshold of the hashtable
+    protected int threshold;
+    // used to count the total number of used cells inside the table
+    // including cells marked as deleted
+    protected int usedBuckets;
+    // used to track the number of unique keys inside the hashtable
+    protected int keyCount;
+    // structural changes (keys added or removed, entries moved by a resize or by the lazy
+    // relocation of an insertion), keyIterator and forEach fail when it changes under them
+    protected int modificationCount;
+    // forEach calls in progress, the insertions don't resize or relocate entries while one runs
+    private int iterations;
+
+    // Arrays to keep the key and value pairs
+    protected long[] keys;
+    protected Value[] values;
+
+    // entries whose key collides with one of the sentinels
+    protected boolean hasEmptyKey, hasTombstoneKey;
+    protected Value emptyKeyValue, tombstoneKeyValue;
+
+    // default hashtable parameters
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final double DEFAULT_LOAD_FACTOR = 0.65;
+
+    // constructors
+    protected LongObjectHashTable() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    protected LongObjectHashTable(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    protected LongObjectHashTable(int capacity, double loadFactor) {
+        if (capacity <= 0) throw new IllegalArgumentException("Illegal capacity: " + capacity);
+
+        if (loadFactor <= 0 || loadFactor >= 1 || Double.isNaN(loadFactor))
+            throw new IllegalArgumentException("Illegal loadFactor: " + loadFactor);
+
+        this.loadFactor = loadFactor;
+        this.capacity = Math.max(DEFAULT_CAPACITY, capacity);
+        adjustCapacity();
+        threshold = (int) (this.capacity * loadFactor);
+
+        keys = new long[this.capacity];
+        values = (Value[]) new Object[this.capacity];
+    }
+
+    // the actual method to do the probing
+    protected abstract int probe(int x);
+
+    // Adjusts the capacity of the hash table after it's been made larger, the size of
+    // the table controls the functionality of the probing function. Implementations
+    // must leave a power of two capacity, or override normalizeIndex accordingly.
+    protected abstract void adjustCapacity();
+
+    // increase the capacity of the hashtable
+    protected void increaseCapacity() {
+        capacity = (2 * capacity);
+    }
+
+    // double the size of the hash-table
+    protected void resizeTable() {
+        increaseCapacity();
+        adjustCapacity();
+
+        threshold = (int) (capacity * loadFactor);
+
+        long[] oldKeyTable = keys;
+        keys = new long[capacity];
+
+        Value[] oldValueTable = values;
+        values = (Value[]) new Object[capacity];
+
+        // Reset the key count and buckets used since we are about to
+        // re-insert all the keys stored in the table
+        usedBuckets = 0;
+        keyCount = (hasEmptyKey ? 1 : 0) + (hasTombstoneKey ? 1 : 0);
+
+        for (int i = 0; i < oldKeyTable.length; i++) {
+            long key = oldKeyTable[i];
+            if (key != EMPTY && key != TOMBSTONE) insert(key, oldValueTable[i]);
+        }
+    }
+
+    // clear the hashtable information
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        hasEmptyKey = hasTombstoneKey = false;
+        emptyKeyValue = tombstoneKeyValue = null;
+        keyCount = usedBuckets = 0;
+        modificationCount++;
+    }
+
+    // returns the number of keys currently inside the hashtable
+    public int size() {
+        return keyCount;
+    }
+
+    // return the capacity of the hashtable
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // return true/false depending on whether the hashtable is empty
+    public boolean isEmpty() {
+        return keyCount == 0;
+    }
+
+    // converts a hash value to an index in the domain [0, capacity). The capacity
+    // is kept a power of two so this is a mask of the low bits. Callers spread the
+    // key hash first (see Hashing.spread) so that the low bits depend on the whole hash.
+    protected int normalizeIndex(int keyHash) {
+        return keyHash & (capacity - 1);
+    }
+
+    // returns true/false on whether a given key exists within the hashtable
+    public boolean containsKey(long key) {
+        if (key == EMPTY) return hasEmptyKey;
+        if (key == TOMBSTONE) return hasTombstoneKey;
+        return indexOf(key) != -1;
+    }
+
+    // Place a key-value pair into the hash-table. If the key already exists
+    // then the value is updated. Returns the previous value or null.
+    public Value insert(long key, Value value) {
+        if (key == EMPTY || key == TOMBSTONE) return insertSentinelKey(key, value);
+        // a forEach in progress fails on the insertion of a new key anyway, without
+        // resizing under it the update of an existing key can go on
+        if (usedBuckets >= threshold && iterations == 0) resizeTable();
+
+        final int offset = normalizeIndex(Hashing.spread(Long.hashCode(key)));
+
+        for (int i = offset, j = -1, x = 1 ;; i = normalizeIndex(offset + probe(x++))) {
+            long current = keys[i];
+
+            // the current slot was previously deleted
+            if (current == TOMBSTONE) {
+                if (j == -1) j = i;
+            }
+            // current cell is free so an insertion can occur, reusing the first
+            // deleted cell found along the way if there is one
+            else if (current == EMPTY) {
+                if (j == -1) {
+                    usedBuckets++;
+                    j = i;
+                }
+
+                keyCount++;
+                modificationCount++;
+                keys[j] = key;
+                values[j] = value;
+                return null;
+            }
+            // The key already exists, update its value and move it
+            // closer to the start of the probe sequence if possible
+            else if (current == key) {
+                Value oldValue = values[i];
+
+                if (j == -1 || iterations > 0) {
+                    values[i] = value;
+                } else {
+                    keys[i] = TOMBSTONE;
+                    values[i] = null;
+                    keys[j] = key;
+                    values[j] = value;
+                    modificationCount++;
+                }
+
+                return oldValue;
+            }
+        }
+    }
+
+    // Get the value associated with the input key
+    // returns null if the value is null and also returns
+    // null if the key does not exists
+    public Value get(long key) {
+        if (key == EMPTY) return emptyKeyValue;
+        if (key == TOMBSTONE) return tombstoneKeyValue;
+
+        int i = indexOf(key);
+        return i == -1 ? null : values[i];
+    }
+
+    // Removes a key from the map and returns the value.
+    // NOTE: returns null if the value is null AND also returns
+    // null if the key does not exists.
+    public Value remove(long key) {
+        if (key == EMPTY || key == TOMBSTONE) return removeSentinelKey(key);
+
+        final int offset = normalizeIndex(Hashing.spread(Long.hashCode(key)));
+
+        for (int i = offset, x = 1 ;; i = normalizeIndex(offset + probe(x++))) {
+            long current = keys[i];
+
+            // Key was not found in hash-table.
+            if (current == EMPTY) return null;
+
+            // The key we want to remove is in the hash-table!
+            if (current == key) {
+                keyCount--;
+                modificationCount++;
+                Value oldValue = values[i];
+                keys[i] = TOMBSTONE;
+                values[i] = null;
+                return oldValue;
+            }
+        }
+    }
+
+    // Finds the cell holding the key, or -1 if it does not exist. Unlike the insertions,
+    // a lookup doesn't relocate the entry, so it doesn't disturb the iterations
+    private int indexOf(long key) {
+        final int offset = normalizeIndex(Hashing.spread(Long.hashCode(key)));
+
+        for (int i = offset, x = 1 ;; i = normalizeIndex(offset + probe(x++))) {
+            long current = keys[i];
+
+            // the deleted cells are skipped, a sentinel key is never looked up here
+            if (current == EMPTY) return -1;
+            if (current == key) return i;
+        }
+    }
+
+    private Value insertSentinelKey(long key, Value value) {
+        Value oldValue;
+
+        if (key == EMPTY) {
+            oldValue = emptyKeyValue;
+            if (!hasEmptyKey) {
+                keyCount++;
+                modificationCount++;
+            }
+            hasEmptyKey = true;
+            emptyKeyValue = value;
+        } else {
+            oldValue = tombstoneKeyValue;
+            if (!hasTombstoneKey) {
+                keyCount++;
+                modificationCount++;
+            }
+            hasTombstoneKey = true;
+            tombstoneKeyValue = value;
+        }
+
+        return oldValue;
+    }
+
+    private Value removeSentinelKey(long key) {
+        Value oldValue;
+
+        if (key == EMPTY) {
+            if (!hasEmptyKey) return null;
+            oldValue = emptyKeyValue;
+            hasEmptyKey = false;
+            emptyKeyValue = null;
+        } else {
+            if (!hasTombstoneKey) return null;
+            oldValue = tombstoneKeyValue;
+            hasTombstoneKey = false;
+            tombstoneKeyValue = null;
+        }
+
+        keyCount--;
+        modificationCount++;
+        return oldValue;
+    }
+
+    // returns the keys found in the hash table
+    public long[] keys() {
+        long[] hashtableKeys = new long[keyCount];
+        int n = 0;
+
+        if (hasEmptyKey) hashtableKeys[n++] = EMPTY;
+        if (hasTombstoneKey) hashtableKeys[n++] = TOMBSTONE;
+
+        for (int i = 0; i < capacity; i++)
+            if (keys[i] != EMPTY && keys[i] != TOMBSTONE) hashtableKeys[n++] = keys[i];
+
+        return hashtableKeys;
+    }
+
+    // returns a list of non-unique values found in the hashtable,
+    // in the same order as keys()
+    public List<Value> values() {
+        List<Value> hashtableValues = new ArrayList<>(keyCount);
+
+        if (hasEmptyKey) hashtableValues.add(emptyKeyValue);
+        if (hasTombstoneKey) hashtableValues.add(tombstoneKeyValue);
+
+        for (int i = 0; i < capacity; i++)
+            if (keys[i] != EMPTY && keys[i] != TOMBSTONE) hashtableValues.add(values[i]);
+
+        return hashtableValues;
+    }
+
+    // receives the entries of forEach, without boxing the keys
+    @FunctionalInterface
+    public interface EntryConsumer<Value> {
+        void accept(long key, Value value);
+    }
+
+    // Calls the action for every entry, in the same order as keys(), walking the table directly.
+    // Fails with a ConcurrentModificationException as soon as the action adds or removes a key.
+    // The action can look keys up and update the values of existing keys, the entries are not
+    // relocated while the table is walked.
+    public void forEach(EntryConsumer<? super Value> action) {
+        final int expectedModificationCount = modificationCount;
+        iterations++;
+
+        try {
+            if (hasEmptyKey) action.accept(EMPTY, emptyKeyValue);
+            if (hasTombstoneKey) action.accept(TOMBSTONE, tombstoneKeyValue);
+            if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+
+            for (int i = 0; i < capacity; i++) {
+                if (keys[i] == EMPTY || keys[i] == TOMBSTONE) continue;
+
+                action.accept(keys[i], values[i]);
+                if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+            }
+        } finally {
+            iterations--;
+        }
+    }
+
+    // Iterates over the keys in the same order as keys(), without copying or boxing them.
+    // Fails with a ConcurrentModificationException once the table is modified, the lookups
+    // don't modify it.
+    public PrimitiveIterator.OfLong keyIterator() {
+        return new PrimitiveIterator.OfLong() {
+
+            // the sentinel keys come first
+            boolean emptyKeyLeft = hasEmptyKey, tombstoneKeyLeft = hasTombstoneKey;
+            int index, keysLeft = keyCount;
+            final int expectedModificationCount = modificationCount;
+
+            @Override
+            public boolean hasNext() {
+                if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+                return keysLeft != 0;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) throw new NoSuchElementException();
+                keysLeft--;
+
+                if (emptyKeyLeft) {
+                    emptyKeyLeft = false;
+                    return EMPTY;
+                }
+                if (tombstoneKeyLeft) {
+                    tombstoneKeyLeft = false;
+                    return TOMBSTONE;
+                }
+
+                while (keys[index] == EMPTY || keys[index] == TOMBSTONE) index++;
+                return keys[index++];
+            }
+        };
+    }
+
+    // return a string view of this hashtable
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("{");
+        if (hasEmptyKey) sb.append(EMPTY).append(" => ").append(emptyKeyValue).append(", ");
+        if (hasTombstoneKey) sb.append(TOMBSTONE).append(" => ").append(tombstoneKeyValue).append(", ");
+
+        for (int i = 0; i < capacity; i++)
+            if (keys[i] != EMPTY && keys[i] != TOMBSTONE)
+                sb.append(keys[i]).append(" => ").append(values[i]).append(", ");
+
+        if (sb.length() > 2){
+            // Remove the trailing comma and space
+            sb.setLength(sb.length() - 2);
+        }
+        sb.append("}");
+
+        return sb.toString();
+    }
+}
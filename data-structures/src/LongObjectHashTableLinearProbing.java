@@ -0,0 +1,34 @@
+/**
+ * An implementation of a long -> Object hash-table using open addressing with linear probing as
+ * a collision resolution method.
+ */
+public class LongObjectHashTableLinearProbing<Value> extends LongObjectHashTable<Value> {
+
+    // This is the linear constant used in the linear probing, it must be odd so
+    // that GCD(capacity, LINEAR_CONSTANT) = 1 with a power of two capacity
+    private static final int LINEAR_CONSTANT = 1;
+
+    public LongObjectHashTableLinearProbing() {
+        super();
+    }
+
+    public LongObjectHashTableLinearProbing(int capacity) {
+        super(capacity);
+    }
+
+    public LongObjectHashTableLinearProbing(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+    }
+
+    @Override
+    protected int probe(int x) {
+        return x * LINEAR_CONSTANT;
+    }
+
+    // Adjust the capacity to a power of two, relatively prime to the linear constant.
+    @Override
+    protected void adjustCapacity() {
+        capacity = Hashing.tableSizeFor(capacity);
+    }
+
+}
@@ -0,0 +1,35 @@
+/**
+ * An implementation of a long -> Object hash-table using open addressing with quadratic probing
+ * as a collision resolution method.
+ *
+ * Uses the same probing function as HashTableQuadraticProbing: H(k, x) = h(k) + (x + x^2) / 2
+ * mod 2^n, which visits every cell of a table whose capacity is a power of two.
+ */
+public class LongObjectHashTableQuadraticProbing<Value> extends LongObjectHashTable<Value> {
+
+    public LongObjectHashTableQuadraticProbing() {
+        super();
+    }
+
+    public LongObjectHashTableQuadraticProbing(int capacity) {
+        super(capacity);
+    }
+
+    public LongObjectHashTableQuadraticProbing(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+    }
+
+    @Override
+    protected int probe(int x) {
+        // Quadratic probing function (x^2+x)/2
+        return (x * x + x) >> 1;
+    }
+
+    // Adjust the capacity of the hashtable to be a power of two.
+    // Doubling in increaseCapacity keeps it that way.
+    @Override
+    protected void adjustCapacity() {
+        capacity = Hashing.tableSizeFor(capacity);
+    }
+
+}
@@ -0,0 +1,275 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+import java.util.stream.IntStream;
+
+/*
+*   Resizing array of longs, the primitive counterpart of ResizingArray.
+*
+*   The elements are stored in a long[] instead of an Object[] of boxed Longs, which takes 8
+*   bytes per element instead of the 4 or 8 bytes of the reference plus the 16 bytes of the Long,
+*   and gives the garbage collector a single object to trace. The array doubles when it's full
+*   and halves when it's a quarter full, as ResizingArray does.
+*
+*   array() exposes the backing array, so loops and the java.util.Arrays methods can work on the
+*   elements directly, and stream() scans them as a LongStream without boxing.
+* */
+
+public class LongResizingArray {
+
+    private static final int INIT_CAPACITY = 8;
+    // largest array the VM can allocate
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private long[] arr;
+    private int len = 0; // Length user thinks array is
+
+    public LongResizingArray() {
+        this(INIT_CAPACITY);
+    }
+
+    public LongResizingArray(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        arr = new long[capacity];
+    }
+
+    public int size() {
+        return len;
+    }
+
+    public boolean isEmpty() {
+        return len == 0;
+    }
+
+    // number of elements the backing array can hold
+    public int capacity() {
+        return arr.length;
+    }
+
+    public long get(int index) {
+        if (index < 0 || index >= len) throw new IndexOutOfBoundsException();
+        return arr[index];
+    }
+
+    public void set(int index, long item) {
+        if (index < 0 || index >= len) throw new IndexOutOfBoundsException();
+        arr[index] = item;
+    }
+
+    public void clear() {
+        len = 0;
+    }
+
+    public void resize(int capacity) {
+        if (capacity < len) throw new IllegalArgumentException("Capacity " + capacity + " can't hold " + len + " elements");
+        arr = Arrays.copyOf(arr, capacity);
+    }
+
+    // Makes room for the given number of elements, so adding them doesn't resize the array
+    // again. The capacity is at least doubled, to keep the additions amortized O(1).
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity <= arr.length) return;
+        if (minCapacity > MAX_CAPACITY) throw new IllegalStateException("Array can't grow past " + MAX_CAPACITY + " elements");
+
+        resize((int) Math.min(Math.max(2L * arr.length, minCapacity), MAX_CAPACITY));
+    }
+
+    // Shrinks the array to the number of elements. The bulk removals don't shrink it,
+    // this releases the memory they left unused.
+    public void trimToSize() {
+        if (len < arr.length) resize(len);
+    }
+
+    public void add(long item) {
+        if (len == arr.length) ensureCapacity(len + 1);
+        arr[len++] = item;
+    }
+
+    // Inserts the item at the given index, the elements from there on are shifted up by one
+    public void insertAt(int index, long item) {
+        if (index > len || index < 0) throw new IndexOutOfBoundsException();
+        if (len == arr.length) ensureCapacity(len + 1);
+
+        System.arraycopy(arr, index, arr, index + 1, len - index);
+        arr[index] = item;
+        len++;
+    }
+
+    // Adds every element of the array, with a single resize and a single copy
+    public void addAll(long[] items) {
+        addAll(items, 0, items.length);
+    }
+
+    // Adds the elements of items in [from, to)
+    public void addAll(long[] items, int from, int to) {
+        if (from < 0 || to > items.length || from > to)
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + items.length);
+
+        int count = to - from;
+        if ((long) len + count > MAX_CAPACITY) throw new IllegalStateException("Array can't grow past " + MAX_CAPACITY + " elements");
+
+        ensureCapacity(len + count);
+        System.arraycopy(items, from, arr, len, count);
+        len += count;
+    }
+
+    // Removes the element at the given index, the following ones are shifted down by one.
+    // The array is halved once it's a quarter full, so a pop is amortized O(1).
+    public long removeAt(int rm_index) {
+        if (rm_index >= len || rm_index < 0) throw new IndexOutOfBoundsException();
+
+        long data = arr[rm_index];
+        System.arraycopy(arr, rm_index + 1, arr, rm_index, len - rm_index - 1);
+        len--;
+
+        if (len > 0 && len == arr.length / 4) resize(arr.length / 2);
+        return data;
+    }
+
+    // Removes the elements in [from, to) with a single shift of the following ones. Nothing
+    // is allocated, the capacity is kept until trimToSize() is called.
+    public void removeRange(int from, int to) {
+        if (from < 0 || to > len || from > to)
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + len);
+
+        System.arraycopy(arr, to, arr, from, len - to);
+        len -= to - from;
+    }
+
+    // Removes every element matching the filter in a single pass, the kept ones are moved
+    // down over the removed ones in order. If the filter throws, the elements it didn't get
+    // to are kept.
+    public boolean removeIf(LongPredicate filter) {
+        final int oldLen = len;
+        int kept = 0, i = 0;
+
+        try {
+            for (; i < oldLen; i++) {
+                long item = arr[i];
+                if (!filter.test(item)) arr[kept++] = item;
+            }
+        } finally {
+            if (i < oldLen) {
+                System.arraycopy(arr, i, arr, kept, oldLen - i);
+                kept += oldLen - i;
+            }
+
+            len = kept;
+        }
+
+        return kept != oldLen;
+    }
+
+    // Removes the first occurrence of the value, returns false if it's not in the array
+    public boolean remove(long item) {
+        int index = indexOf(item);
+        if (index == -1) return false;
+
+        removeAt(index);
+        return true;
+    }
+
+    public long pop() {
+        if (isEmpty()) throw new NoSuchElementException("Stack Underflow");
+        return removeAt(len - 1);
+    }
+
+    public long peek() {
+        if (isEmpty()) throw new NoSuchElementException("Stack Underflow");
+        return arr[len - 1];
+    }
+
+    public int indexOf(long item) {
+        for (int i = 0; i < len; i++) {
+            if (arr[i] == item) return i;
+        }
+        return -1;
+    }
+
+    public boolean contains(long item) {
+        return indexOf(item) != -1;
+    }
+
+    // Sorts the elements in ascending order, in the backing array
+    public void sort() {
+        Arrays.sort(arr, 0, len);
+    }
+
+    // Same as sort, but the array is split into parts sorted in parallel and merged with
+    // fork/join tasks of the common pool. Small arrays are sorted sequentially.
+    public void parallelSort() {
+        Arrays.parallelSort(arr, 0, len);
+    }
+
+    // Index of the key in a sorted array, or -(insertion point) - 1 if it's not there, as
+    // Arrays.binarySearch. The array doesn't track whether it's sorted (array() can write
+    // to it), so indexOf stays a linear scan and the sorted arrays are searched with this.
+    public int binarySearch(long key) {
+        return Arrays.binarySearch(arr, 0, len, key);
+    }
+
+    // Replaces every element by the combination of the elements up to it with the operator,
+    // which must be associative: [a, b, c] becomes [a, a op b, a op b op c]. The array is
+    // split in parts combined by fork/join tasks of the common pool.
+    public void parallelPrefix(LongBinaryOperator operator) {
+        Arrays.parallelPrefix(arr, 0, len, operator);
+    }
+
+    // Sets every element to the generator applied to its index, the indexes being split among
+    // the fork/join workers of the common pool, as Arrays.parallelSetAll does for a whole array
+    public void parallelSetAll(IntToLongFunction generator) {
+        IntStream.range(0, len).parallel().forEach(i -> arr[i] = generator.applyAsLong(i));
+    }
+
+    // The backing array, holding the elements in [0, size()). Writes to it are seen by the
+    // resizing array and the other way around, until an add or a remove reallocates it.
+    public long[] array() {
+        return arr;
+    }
+
+    // copy of the elements
+    public long[] toArray() {
+        return Arrays.copyOf(arr, len);
+    }
+
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+
+            int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < len;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return arr[index++];
+            }
+        };
+    }
+
+    // splits the index range in halves, every part knows its exact size
+    public Spliterator.OfLong spliterator() {
+        return Spliterators.spliterator(arr, 0, len, Spliterator.ORDERED);
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(arr, 0, len);
+    }
+
+    public String toString() {
+        if (len == 0) return "[]";
+
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < len - 1; i++) sb.append(arr[i]).append(", ");
+        return sb.append(arr[len - 1]).append("]").toString();
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Bounded cache evicting the least recently used entries first.
+ *
+ * A single list holds the entries in access order, a hit moves the entry to its end and the
+ * evictions take the entries from its head. Cheap and good for recency skewed workloads, but a
+ * scan of keys that are used once flushes the whole cache, see TinyLfuCache for that.
+ */
+public class LruCache<Key, Value> extends BoundedCache<Key, Value> {
+
+    private final AccessOrderList<Key, Value> accessOrder = new AccessOrderList<>();
+
+    // bounded by the number of entries
+    public LruCache(long maximumSize) {
+        this(maximumSize, null, null);
+    }
+
+    public LruCache(long maximumWeight, Weigher<? super Key, ? super Value> weigher) {
+        this(maximumWeight, weigher, null);
+    }
+
+    public LruCache(long maximumWeight, Weigher<? super Key, ? super Value> weigher,
+                    EvictionListener<? super Key, ? super Value> evictionListener) {
+        super(maximumWeight, weigher, evictionListener);
+    }
+
+    @Override
+    protected void onInsert(Node<Key, Value> node) {
+        accessOrder.addLast(node);
+    }
+
+    @Override
+    protected void onAccess(Node<Key, Value> node) {
+        accessOrder.moveToLast(node);
+    }
+
+    @Override
+    protected void evictIfNeeded() {
+        while (weightedSize > maximumWeight) evict(accessOrder.first());
+    }
+
+    @Override
+    protected void onClear() {
+        accessOrder.clear();
+    }
+}
@@ -2,6 +2,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 public class MinPriorityQueue<Key extends Comparable<Key>> implements Iterable<Key> {
 
@@ -201,6 +203,13 @@ public class MinPriorityQueue<Key extends Comparable<Key>> implements Iterable<K
         return new HeapIterator();
     }
 
+    // Splits the heap array in halves, every part knows its exact size. Unlike the iterator
+    // the keys come in the order of the heap array, not in ascending order.
+    @Override
+    public Spliterator<Key> spliterator() {
+        return Spliterators.spliterator(pq, 1, n + 1, 0);
+    }
+
     private class HeapIterator implements Iterator<Key> {
 
         private final MinPriorityQueue<Key> copy;
@@ -0,0 +1,678 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/*
+*   Base class for long -> long hashtables with an open addressing collision resolution method,
+*   storing their cells outside of the Java heap.
+*
+*   This is the off-heap counterpart of IntIntHashTable, subclasses only dictate how the probing
+*   occurs. Every cell is 16 bytes (key, then value) in direct memory, so the heap only holds a
+*   handful of buffer objects whatever the number of keys: the collector has nothing to scan or
+*   copy, and its pauses don't grow with the table. Keys and values that aren't longs can be used
+*   as long as they are packed in 8 bytes by the caller.
+*
+*   The cells are split over direct ByteBuffers of at most SEGMENT_BYTES, since a single buffer
+*   can't hold more than 2GB. Segments are powers of two so a cell never straddles two of them.
+*
+*   The memory is released by close(), the table can't be used afterwards. A table that is never
+*   closed only gets its memory back when the buffers are garbage collected, which may be late
+*   since the heap sees very little of it.
+*
+*   save() dumps the cells as they are, after a header with the capacity, the load factor, the
+*   probing scheme and the sentinel entries. A table built from such a snapshot maps the file
+*   read-only instead of inserting the keys again, so it can serve lookups as soon as the file is
+*   mapped, the pages being read from disk on first access. The cells are copied to direct memory
+*   on the first change, the file is never written.
+*
+*   Empty and deleted cells are encoded with sentinel keys (EMPTY and TOMBSTONE). Since those
+*   are valid long keys too, the entries whose key is a sentinel are kept aside in dedicated fields.
+* */
+
+public abstract class OffHeapLongLongHashTable implements AutoCloseable {
+
+    // Sentinel keys used to mark free and deleted cells. EMPTY is 0 so freshly
+    // allocated direct memory, which is zeroed, doesn't need to be filled.
+    protected static final long EMPTY = 0L;
+    protected static final long TOMBSTONE = Long.MIN_VALUE;
+
+    // a cell holds a key and its value
+    protected static final int CELL_BYTES = 16;
+    private static final int CELL_SHIFT = 4;
+
+    // largest direct buffer allocated, a power of two
+    private static final int SEGMENT_SHIFT = 27;
+    protected static final int SEGMENT_BYTES = 1 << SEGMENT_SHIFT;
+
+    // layout of a snapshot: the header, padded to HEADER_BYTES, then the cells in index order.
+    // Everything is little endian, the cells use the same order in memory so a snapshot can be
+    // mapped as is.
+    private static final int MAGIC = 0x4F484854;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 256;
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // Unsafe.invokeCleaner, used to free a direct buffer without waiting for the collector.
+    // It's null if the running JVM doesn't expose it, close() then only drops the buffers.
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    // used to set the maximum load factor of the hashtable
+    protected double loadFactor;
+    // used to register the total number of cells of the hashtable
+    protected int capacity;
+    // used to maintain the capacity threshold of the hashtable
+    protected int threshold;
+    // used to count the total number of used cells inside the table
+    // including cells marked as deleted
+    protected int usedBuckets;
+    // used to track the number of unique keys inside the hashtable
+    protected int keyCount;
+    // structural changes (keys added or removed, entries moved by a resize or by the lazy
+    // relocation of an insertion), keyIterator and forEach fail when it changes under them
+    protected int modificationCount;
+    // forEach calls in progress, the insertions don't resize or relocate entries while one runs
+    private int iterations;
+
+    // the cells, null once the table is closed
+    private ByteBuffer[] segments;
+    // cells of a segment minus one, segments of a small table are smaller than SEGMENT_BYTES
+    private int segmentMask;
+    private int segmentShift;
+    // true while the cells are a read-only mapping of a snapshot
+    private boolean mapped;
+
+    // value returned by the lookups when a key does not exist
+    protected final long noEntryValue;
+
+    // entries whose key collides with one of the sentinels
+    protected boolean hasEmptyKey, hasTombstoneKey;
+    protected long emptyKeyValue, tombstoneKeyValue;
+
+    // default hashtable parameters
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final double DEFAULT_LOAD_FACTOR = 0.65;
+
+    // constructors
+    protected OffHeapLongLongHashTable() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    protected OffHeapLongLongHashTable(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    protected OffHeapLongLongHashTable(int capacity, double loadFactor) {
+        this(capacity, loadFactor, 0L);
+    }
+
+    protected OffHeapLongLongHashTable(int capacity, double loadFactor, long noEntryValue) {
+        if (capacity <= 0) throw new IllegalArgumentException("Illegal capacity: " + capacity);
+
+        if (loadFactor <= 0 || loadFactor >= 1 || Double.isNaN(loadFactor))
+            throw new IllegalArgumentException("Illegal loadFactor: " + loadFactor);
+
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        this.capacity = Math.max(DEFAULT_CAPACITY, capacity);
+        adjustCapacity();
+        threshold = (int) (this.capacity * loadFactor);
+
+        allocate(this.capacity);
+    }
+
+    // maps a snapshot written by save(), it must have been taken from a table of the same class
+    protected OffHeapLongLongHashTable(Path snapshot) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(BYTE_ORDER);
+            while (header.hasRemaining() && channel.read(header) != -1);
+            header.flip();
+
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC)
+                throw new IOException("Not a hashtable snapshot: " + snapshot);
+            if (header.getInt() != VERSION) throw new IOException("Unsupported snapshot version: " + snapshot);
+
+            capacity = header.getInt();
+            keyCount = header.getInt();
+            usedBuckets = header.getInt();
+            int flags = header.getInt();
+            loadFactor = header.getDouble();
+            noEntryValue = header.getLong();
+            emptyKeyValue = header.getLong();
+            tombstoneKeyValue = header.getLong();
+            hasEmptyKey = (flags & 1) != 0;
+            hasTombstoneKey = (flags & 2) != 0;
+
+            // the probing scheme decides where the keys are, it can't change
+            int nameLength = header.getShort();
+            if (nameLength < 0 || nameLength > header.remaining())
+                throw new IOException("Corrupted snapshot: " + snapshot);
+            byte[] name = new byte[nameLength];
+            header.get(name);
+            String probing = new String(name, StandardCharsets.UTF_8);
+            if (!probing.equals(getClass().getName()))
+                throw new IOException("Snapshot was taken from " + probing + ", not from " + getClass().getName());
+
+            if (capacity <= 0 || Integer.bitCount(capacity) != 1
+                    || channel.size() != HEADER_BYTES + ((long) capacity << CELL_SHIFT))
+                throw new IOException("Corrupted snapshot: " + snapshot);
+
+            threshold = (int) (capacity * loadFactor);
+
+            // the mappings stay valid once the channel is closed
+            int segmentBytes = segmentLayout(capacity);
+            ByteBuffer[] newSegments = new ByteBuffer[(int) (((long) capacity << CELL_SHIFT) / segmentBytes)];
+            for (int s = 0; s < newSegments.length; s++)
+                newSegments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + (long) s * segmentBytes, segmentBytes).order(BYTE_ORDER);
+
+            segments = newSegments;
+            mapped = true;
+        }
+    }
+
+    // the actual method to do the probing
+    protected abstract int probe(int x);
+
+    // Adjusts the capacity of the hash table after it's been made larger, the size of
+    // the table controls the functionality of the probing function. Implementations
+    // must leave a power of two capacity, or override normalizeIndex accordingly.
+    protected abstract void adjustCapacity();
+
+    // increase the capacity of the hashtable
+    protected void increaseCapacity() {
+        if (capacity >= Hashing.MAXIMUM_CAPACITY)
+            throw new IllegalStateException("Hashtable can't grow past " + capacity + " cells");
+        capacity = (2 * capacity);
+    }
+
+    // sets the segment shift and mask for the given number of cells, returns the segment size
+    private int segmentLayout(int cells) {
+        int segmentBytes = (int) Math.min((long) cells << CELL_SHIFT, SEGMENT_BYTES);
+        segmentShift = Integer.numberOfTrailingZeros(segmentBytes) - CELL_SHIFT;
+        segmentMask = (segmentBytes >>> CELL_SHIFT) - 1;
+        return segmentBytes;
+    }
+
+    // allocates zeroed segments for the given number of cells
+    private void allocate(int cells) {
+        int segmentBytes = segmentLayout(cells);
+
+        ByteBuffer[] newSegments = new ByteBuffer[(int) (((long) cells << CELL_SHIFT) / segmentBytes)];
+        for (int s = 0; s < newSegments.length; s++)
+            newSegments[s] = ByteBuffer.allocateDirect(segmentBytes).order(BYTE_ORDER);
+
+        segments = newSegments;
+        mapped = false;
+    }
+
+    // copies the cells of a mapped snapshot to direct memory before they are changed
+    private void ensureWritable() {
+        if (!mapped) return;
+
+        ByteBuffer[] mappedSegments = segments;
+        allocate(capacity);
+        for (int s = 0; s < segments.length; s++)
+            segments[s].put(0, mappedSegments[s], 0, mappedSegments[s].capacity());
+
+        free(mappedSegments);
+    }
+
+    // Writes the table to the given file, replacing it. The table can be restored
+    // by the constructor of its class taking the path of the snapshot.
+    public void save(Path file) throws IOException {
+        ensureOpen();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(BYTE_ORDER);
+        byte[] probing = getClass().getName().getBytes(StandardCharsets.UTF_8);
+        header.putInt(MAGIC).putInt(VERSION).putInt(capacity).putInt(keyCount).putInt(usedBuckets)
+                .putInt((hasEmptyKey ? 1 : 0) | (hasTombstoneKey ? 2 : 0)).putDouble(loadFactor)
+                .putLong(noEntryValue).putLong(emptyKeyValue).putLong(tombstoneKeyValue)
+                .putShort((short) probing.length).put(probing);
+        header.clear();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) channel.write(header);
+
+            for (ByteBuffer segment : segments) {
+                ByteBuffer cells = segment.duplicate().clear();
+                while (cells.hasRemaining()) channel.write(cells);
+            }
+        }
+    }
+
+    // double the size of the hash-table
+    protected void resizeTable() {
+        ByteBuffer[] oldSegments = segments;
+        int oldShift = segmentShift, oldMask = segmentMask, oldCapacity = capacity;
+
+        increaseCapacity();
+        adjustCapacity();
+
+        threshold = (int) (capacity * loadFactor);
+        allocate(capacity);
+
+        // Reset the key count and buckets used since we are about to
+        // re-insert all the keys stored in the table
+        usedBuckets = 0;
+        keyCount = (hasEmptyKey ? 1 : 0) + (hasTombstoneKey ? 1 : 0);
+
+        for (int i = 0; i < oldCapacity; i++) {
+            ByteBuffer segment = oldSegments[i >>> oldShift];
+            int position = (i & oldMask) << CELL_SHIFT;
+
+            long key = segment.getLong(position);
+            if (key != EMPTY && key != TOMBSTONE) insert(key, segment.getLong(position + 8));
+        }
+
+        free(oldSegments);
+    }
+
+    // clear the hashtable information
+    public void clear() {
+        ensureOpen();
+
+        // a mapped snapshot is dropped rather than copied
+        if (mapped) {
+            ByteBuffer[] mappedSegments = segments;
+            allocate(capacity);
+            free(mappedSegments);
+        } else {
+            for (ByteBuffer segment : segments)
+                for (int position = 0; position < segment.capacity(); position += 8) segment.putLong(position, 0L);
+        }
+
+        hasEmptyKey = hasTombstoneKey = false;
+        keyCount = usedBuckets = 0;
+        modificationCount++;
+    }
+
+    // releases the memory of the table, it can't be used afterwards
+    @Override
+    public void close() {
+        if (segments == null) return;
+
+        ByteBuffer[] oldSegments = segments;
+        segments = null;
+        hasEmptyKey = hasTombstoneKey = false;
+        keyCount = usedBuckets = 0;
+
+        free(oldSegments);
+    }
+
+    // returns the number of keys currently inside the hashtable
+    public int size() {
+        return keyCount;
+    }
+
+    // return the capacity of the hashtable
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // return true/false depending on whether the hashtable is empty
+    public boolean isEmpty() {
+        return keyCount == 0;
+    }
+
+    // bytes of direct memory held by the table, 0 once closed or while mapped
+    public long offHeapBytes() {
+        return segments == null || mapped ? 0 : (long) capacity << CELL_SHIFT;
+    }
+
+    // true while the table reads the cells of a snapshot file, until its first change
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    // converts a hash value to an index in the domain [0, capacity). The capacity
+    // is kept a power of two so this is a mask of the low bits. Callers spread the
+    // key hash first (see Hashing.spread) so that the low bits depend on the whole hash.
+    protected int normalizeIndex(int keyHash) {
+        return keyHash & (capacity - 1);
+    }
+
+    // accessors of the key and the value of a cell
+    private long keyAt(int i) {
+        return segments[i >>> segmentShift].getLong((i & segmentMask) << CELL_SHIFT);
+    }
+
+    private long valueAt(int i) {
+        return segments[i >>> segmentShift].getLong(((i & segmentMask) << CELL_SHIFT) + 8);
+    }
+
+    private void setCell(int i, long key, long value) {
+        ByteBuffer segment = segments[i >>> segmentShift];
+        int position = (i & segmentMask) << CELL_SHIFT;
+        segment.putLong(position, key);
+        segment.putLong(position + 8, value);
+    }
+
+    // returns true/false on whether a given key exists within the hashtable
+    public boolean containsKey(long key) {
+        ensureOpen();
+        if (key == EMPTY) return hasEmptyKey;
+        if (key == TOMBSTONE) return hasTombstoneKey;
+        return indexOf(key) != -1;
+    }
+
+    // Place a key-value pair into the hash-table. If the key already exists
+    // then the value is updated. Returns the previous value or noEntryValue.
+    public long insert(long key, long value) {
+        ensureOpen();
+        if (key == EMPTY || key == TOMBSTONE) return insertSentinelKey(key, value);
+        ensureWritable();
+        // a forEach in progress fails on the insertion of a new key anyway, without
+        // resizing under it the update of an existing key can go on
+        if (usedBuckets >= threshold && iterations == 0) resizeTable();
+
+        final int offset = normalizeIndex(Hashing.spread(Long.hashCode(key)));
+
+        for (int i = offset, j = -1, x = 1 ;; i = normalizeIndex(offset + probe(x++))) {
+            long current = keyAt(i);
+
+            // the current slot was previously deleted
+            if (current == TOMBSTONE) {
+                if (j == -1) j = i;
+            }
+            // current cell is free so an insertion can occur, reusing the first
+            // deleted cell found along the way if there is one
+            else if (current == EMPTY) {
+                if (j == -1) {
+                    usedBuckets++;
+                    j = i;
+                }
+
+                keyCount++;
+                modificationCount++;
+                setCell(j, key, value);
+                return noEntryValue;
+            }
+            // The key already exists, update its value and move it
+            // closer to the start of the probe sequence if possible
+            else if (current == key) {
+                long oldValue = valueAt(i);
+
+                if (j == -1 || iterations > 0) {
+                    setCell(i, key, value);
+                } else {
+                    setCell(i, TOMBSTONE, 0L);
+                    setCell(j, key, value);
+                    modificationCount++;
+                }
+
+                return oldValue;
+            }
+        }
+    }
+
+    // Get the value associated with the input key,
+    // returns noEntryValue if the key does not exists
+    public long get(long key) {
+        ensureOpen();
+        if (key == EMPTY) return hasEmptyKey ? emptyKeyValue : noEntryValue;
+        if (key == TOMBSTONE) return hasTombstoneKey ? tombstoneKeyValue : noEntryValue;
+
+        int i = indexOf(key);
+        return i == -1 ? noEntryValue : valueAt(i);
+    }
+
+    // Removes a key from the map and returns the value,
+    // returns noEntryValue if the key does not exists
+    public long remove(long key) {
+        ensureOpen();
+        if (key == EMPTY || key == TOMBSTONE) return removeSentinelKey(key);
+        ensureWritable();
+
+        final int offset = normalizeIndex(Hashing.spread(Long.hashCode(key)));
+
+        for (int i = offset, x = 1 ;; i = normalizeIndex(offset + probe(x++))) {
+            long current = keyAt(i);
+
+            // Key was not found in hash-table.
+            if (current == EMPTY) return noEntryValue;
+
+            // The key we want to remove is in the hash-table!
+            if (current == key) {
+                keyCount--;
+                modificationCount++;
+                long oldValue = valueAt(i);
+                setCell(i, TOMBSTONE, 0L);
+                return oldValue;
+            }
+        }
+    }
+
+    // Finds the cell holding the key, or -1 if it does not exist. Unlike the insertions,
+    // a lookup doesn't relocate the entry, so it doesn't disturb the iterations nor copy a
+    // mapped snapshot
+    private int indexOf(long key) {
+        final int offset = normalizeIndex(Hashing.spread(Long.hashCode(key)));
+
+        for (int i = offset, x = 1 ;; i = normalizeIndex(offset + probe(x++))) {
+            long current = keyAt(i);
+
+            // the deleted cells are skipped, a sentinel key is never looked up here
+            if (current == EMPTY) return -1;
+            if (current == key) return i;
+        }
+    }
+
+    private long insertSentinelKey(long key, long value) {
+        long oldValue;
+
+        if (key == EMPTY) {
+            oldValue = hasEmptyKey ? emptyKeyValue : noEntryValue;
+            if (!hasEmptyKey) {
+                keyCount++;
+                modificationCount++;
+            }
+            hasEmptyKey = true;
+            emptyKeyValue = value;
+        } else {
+            oldValue = hasTombstoneKey ? tombstoneKeyValue : noEntryValue;
+            if (!hasTombstoneKey) {
+                keyCount++;
+                modificationCount++;
+            }
+            hasTombstoneKey = true;
+            tombstoneKeyValue = value;
+        }
+
+        return oldValue;
+    }
+
+    private long removeSentinelKey(long key) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) return noEntryValue;
+            hasEmptyKey = false;
+            keyCount--;
+            modificationCount++;
+            return emptyKeyValue;
+        } else {
+            if (!hasTombstoneKey) return noEntryValue;
+            hasTombstoneKey = false;
+            keyCount--;
+            modificationCount++;
+            return tombstoneKeyValue;
+        }
+    }
+
+    // returns the keys found in the hash table
+    public long[] keys() {
+        ensureOpen();
+        long[] hashtableKeys = new long[keyCount];
+        int n = 0;
+
+        if (hasEmptyKey) hashtableKeys[n++] = EMPTY;
+        if (hasTombstoneKey) hashtableKeys[n++] = TOMBSTONE;
+
+        for (int i = 0; i < capacity; i++) {
+            long key = keyAt(i);
+            if (key != EMPTY && key != TOMBSTONE) hashtableKeys[n++] = key;
+        }
+
+        return hashtableKeys;
+    }
+
+    // returns the non-unique values found in the hashtable,
+    // in the same order as keys()
+    public long[] values() {
+        ensureOpen();
+        long[] hashtableValues = new long[keyCount];
+        int n = 0;
+
+        if (hasEmptyKey) hashtableValues[n++] = emptyKeyValue;
+        if (hasTombstoneKey) hashtableValues[n++] = tombstoneKeyValue;
+
+        for (int i = 0; i < capacity; i++) {
+            long key = keyAt(i);
+            if (key != EMPTY && key != TOMBSTONE) hashtableValues[n++] = valueAt(i);
+        }
+
+        return hashtableValues;
+    }
+
+    // receives the entries of forEach, without boxing them
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    // Calls the action for every entry, in the same order as keys(), reading the cells directly.
+    // Fails with a ConcurrentModificationException as soon as the action adds or removes a key.
+    // The action can look keys up and update the values of existing keys, the entries are not
+    // relocated while the table is walked.
+    public void forEach(EntryConsumer action) {
+        ensureOpen();
+        final int expectedModificationCount = modificationCount;
+        iterations++;
+
+        try {
+            if (hasEmptyKey) action.accept(EMPTY, emptyKeyValue);
+            if (hasTombstoneKey) action.accept(TOMBSTONE, tombstoneKeyValue);
+            if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+
+            for (int i = 0; i < capacity; i++) {
+                long key = keyAt(i);
+                if (key == EMPTY || key == TOMBSTONE) continue;
+
+                action.accept(key, valueAt(i));
+                if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+            }
+        } finally {
+            iterations--;
+        }
+    }
+
+    // Iterates over the keys in the same order as keys(), without copying or boxing them.
+    // Fails with a ConcurrentModificationException once the table is modified, the lookups
+    // don't modify it.
+    public PrimitiveIterator.OfLong keyIterator() {
+        ensureOpen();
+
+        return new PrimitiveIterator.OfLong() {
+
+            // the sentinel keys come first
+            boolean emptyKeyLeft = hasEmptyKey, tombstoneKeyLeft = hasTombstoneKey;
+            int index, keysLeft = keyCount;
+            final int expectedModificationCount = modificationCount;
+
+            @Override
+            public boolean hasNext() {
+                if (expectedModificationCount != modificationCount) throw new ConcurrentModificationException();
+                return keysLeft != 0;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) throw new NoSuchElementException();
+                ensureOpen();
+                keysLeft--;
+
+                if (emptyKeyLeft) {
+                    emptyKeyLeft = false;
+                    return EMPTY;
+                }
+                if (tombstoneKeyLeft) {
+                    tombstoneKeyLeft = false;
+                    return TOMBSTONE;
+                }
+
+                // keysLeft keys are left in [index, capacity) as long as the count didn't change
+                long key = EMPTY;
+                while (index < capacity && ((key = keyAt(index)) == EMPTY || key == TOMBSTONE)) index++;
+                if (index == capacity) throw new ConcurrentModificationException();
+
+                index++;
+                return key;
+            }
+        };
+    }
+
+    // return a string view of this hashtable
+    @Override
+    public String toString() {
+        if (segments == null) return "{closed}";
+
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("{");
+        if (hasEmptyKey) sb.append(EMPTY).append(" => ").append(emptyKeyValue).append(", ");
+        if (hasTombstoneKey) sb.append(TOMBSTONE).append(" => ").append(tombstoneKeyValue).append(", ");
+
+        for (int i = 0; i < capacity; i++) {
+            long key = keyAt(i);
+            if (key != EMPTY && key != TOMBSTONE)
+                sb.append(key).append(" => ").append(valueAt(i)).append(", ");
+        }
+
+        if (sb.length() > 2){
+            // Remove the trailing comma and space
+            sb.setLength(sb.length() - 2);
+        }
+        sb.append("}");
+
+        return sb.toString();
+    }
+
+    // the memory of a closed table may already be reused, so it must not be touched
+    private void ensureOpen() {
+        if (segments == null) throw new IllegalStateException("Hashtable is closed");
+    }
+
+    private static void free(ByteBuffer[] buffers) {
+        if (INVOKE_CLEANER == null) return;
+
+        try {
+            for (ByteBuffer buffer : buffers) INVOKE_CLEANER.invokeExact(buffer);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not free the hashtable memory", e);
+        }
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
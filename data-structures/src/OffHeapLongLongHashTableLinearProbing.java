@@ -0,0 +1,46 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * An implementation of a long -> long hash-table stored off-heap using open addressing with
+ * linear probing as a collision resolution method.
+ */
+public class OffHeapLongLongHashTableLinearProbing extends OffHeapLongLongHashTable {
+
+    // This is the linear constant used in the linear probing, it must be odd so
+    // that GCD(capacity, LINEAR_CONSTANT) = 1 with a power of two capacity
+    private static final int LINEAR_CONSTANT = 1;
+
+    public OffHeapLongLongHashTableLinearProbing() {
+        super();
+    }
+
+    public OffHeapLongLongHashTableLinearProbing(int capacity) {
+        super(capacity);
+    }
+
+    public OffHeapLongLongHashTableLinearProbing(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+    }
+
+    public OffHeapLongLongHashTableLinearProbing(int capacity, double loadFactor, long noEntryValue) {
+        super(capacity, loadFactor, noEntryValue);
+    }
+
+    // maps a snapshot saved from an OffHeapLongLongHashTableLinearProbing, see OffHeapLongLongHashTable.save
+    public OffHeapLongLongHashTableLinearProbing(Path snapshot) throws IOException {
+        super(snapshot);
+    }
+
+    @Override
+    protected int probe(int x) {
+        return x * LINEAR_CONSTANT;
+    }
+
+    // Adjust the capacity to a power of two, relatively prime to the linear constant.
+    @Override
+    protected void adjustCapacity() {
+        capacity = Hashing.tableSizeFor(capacity);
+    }
+
+}
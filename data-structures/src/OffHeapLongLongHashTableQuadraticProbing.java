@@ -0,0 +1,47 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * An implementation of a long -> long hash-table stored off-heap using open addressing with
+ * quadratic probing as a collision resolution method.
+ *
+ * Uses the same probing function as HashTableQuadraticProbing: H(k, x) = h(k) + (x + x^2) / 2
+ * mod 2^n, which visits every cell of a table whose capacity is a power of two.
+ */
+public class OffHeapLongLongHashTableQuadraticProbing extends OffHeapLongLongHashTable {
+
+    public OffHeapLongLongHashTableQuadraticProbing() {
+        super();
+    }
+
+    public OffHeapLongLongHashTableQuadraticProbing(int capacity) {
+        super(capacity);
+    }
+
+    public OffHeapLongLongHashTableQuadraticProbing(int capacity, double loadFactor) {
+        super(capacity, loadFactor);
+    }
+
+    public OffHeapLongLongHashTableQuadraticProbing(int capacity, double loadFactor, long noEntryValue) {
+        super(capacity, loadFactor, noEntryValue);
+    }
+
+    // maps a snapshot saved from an OffHeapLongLongHashTableQuadraticProbing, see OffHeapLongLongHashTable.save
+    public OffHeapLongLongHashTableQuadraticProbing(Path snapshot) throws IOException {
+        super(snapshot);
+    }
+
+    @Override
+    protected int probe(int x) {
+        // Quadratic probing function (x^2+x)/2
+        return (x * x + x) >> 1;
+    }
+
+    // Adjust the capacity of the hashtable to be a power of two.
+    // Doubling in increaseCapacity keeps it that way.
+    @Override
+    protected void adjustCapacity() {
+        capacity = Hashing.tableSizeFor(capacity);
+    }
+
+}
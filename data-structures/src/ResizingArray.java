@@ -1,10 +1,22 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 @SuppressWarnings("unchecked")
 public class ResizingArray <Item> implements Iterable<Item>{
 
     private static final int INIT_CAPACITY = 8;
+    // largest array the VM can allocate
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
     private Item[] arr;
     private int len = 0; // Length user thinks array is
     private int capacity = 0; // Actual array size
@@ -38,59 +50,124 @@ public class ResizingArray <Item> implements Iterable<Item>{
     }
     
     public void clear(){
-        for (int i = 0; i < capacity; i++) {
-            arr[i] = null;
-        }
+        // only the used cells hold references
+        Arrays.fill(arr, 0, len, null);
         len = 0;
     }
 
     public void resize(int capacity) {
-        Item[] newArray = (Item[]) new Object[capacity];
-        if (len >= 0) System.arraycopy(arr, 0, newArray, 0, len);
-        arr = newArray;
+        if (capacity < len) throw new IllegalArgumentException("Capacity " + capacity + " can't hold " + len + " elements");
+        arr = Arrays.copyOf(arr, capacity);
         this.capacity = capacity;
     }
 
+    // Makes room for the given number of elements, so adding them doesn't resize the array
+    // again. The capacity is at least doubled, to keep the additions amortized O(1).
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity <= capacity) return;
+        if (minCapacity > MAX_CAPACITY) throw new IllegalStateException("Array can't grow past " + MAX_CAPACITY + " elements");
+
+        resize((int) Math.min(Math.max(2L * capacity, minCapacity), MAX_CAPACITY));
+    }
+
+    // Shrinks the array to the number of elements. The bulk removals don't shrink it,
+    // this releases the memory they left unused.
+    public void trimToSize() {
+        if (len < capacity) resize(len);
+    }
+
     public void add(Item item){
 
         // time to resize when needed
-        if (len+1 > capacity){
-            if (capacity == 0) resize(1);
-            else resize(capacity*2);
-        }
+        if (len == capacity) ensureCapacity(len + 1);
 
         arr[len++] = item;
     }
 
+    // Inserts the item at the given index, the elements from there on are shifted up by one
+    public void insertAt(int index, Item item) {
+        if (index > len || index < 0) throw new IndexOutOfBoundsException();
+        if (len == capacity) ensureCapacity(len + 1);
+
+        System.arraycopy(arr, index, arr, index + 1, len - index);
+        arr[index] = item;
+        len++;
+    }
+
+    // Adds every element of the array, with a single resize and a single copy
+    public void addAll(Item[] items) {
+        if ((long) len + items.length > MAX_CAPACITY) throw new IllegalStateException("Array can't grow past " + MAX_CAPACITY + " elements");
+
+        ensureCapacity(len + items.length);
+        System.arraycopy(items, 0, arr, len, items.length);
+        len += items.length;
+    }
+
+    public void addAll(Collection<? extends Item> items) {
+        addAll((Item[]) items.toArray());
+    }
+
+    // Removes the element at the given index, the following ones are shifted down in place.
+    // The array is halved once it's a quarter full, so a pop is amortized O(1).
     public Item removeAt(int rm_index){
         if (rm_index >= size() || rm_index < 0) throw new IndexOutOfBoundsException();
-        if (isEmpty()) throw new NoSuchElementException("Stack Underflow");
 
         Item data = arr[rm_index];
 
-        Item[] newArr = (Item[]) new Object[capacity];
-        for (int i = 0; i < len; i++) {
-            if (i == rm_index) continue;
-            newArr[i] = arr[i];
-        }
-        arr = newArr;
-        len--;
+        System.arraycopy(arr, rm_index + 1, arr, rm_index, len - rm_index - 1);
+        arr[--len] = null;
 
         if (len > 0 && len == capacity/4) resize(capacity/2);
         return data;
     }
 
-    public boolean remove(Item item){
+    // Removes the elements in [from, to) with a single shift of the following ones. Nothing
+    // is allocated, the capacity is kept until trimToSize() is called.
+    public void removeRange(int from, int to) {
+        if (from < 0 || to > len || from > to)
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + len);
 
-        if (isEmpty()) throw new NoSuchElementException("Stack Underflow");
+        System.arraycopy(arr, to, arr, from, len - to);
 
-        for (int i = 0; i < len; i++) {
-            if (arr[i].equals(item)) {
-                removeAt(i);
-                return true;
+        int newLen = len - (to - from);
+        Arrays.fill(arr, newLen, len, null);
+        len = newLen;
+    }
+
+    // Removes every element matching the filter in a single pass, the kept ones are moved
+    // down over the removed ones in order. As removeRange, nothing is allocated. If the filter
+    // throws, the elements it didn't get to are kept.
+    public boolean removeIf(Predicate<? super Item> filter) {
+        final int oldLen = len;
+        int kept = 0, i = 0;
+
+        try {
+            for (; i < oldLen; i++) {
+                Item item = arr[i];
+                if (!filter.test(item)) arr[kept++] = item;
             }
+        } finally {
+            if (i < oldLen) {
+                System.arraycopy(arr, i, arr, kept, oldLen - i);
+                kept += oldLen - i;
+            }
+
+            Arrays.fill(arr, kept, oldLen, null);
+            len = kept;
         }
-        return false;
+
+        return kept != oldLen;
+    }
+
+    public boolean remove(Item item){
+
+        if (isEmpty()) throw new NoSuchElementException("Stack Underflow");
+
+        int index = indexOf(item);
+        if (index == -1) return false;
+
+        removeAt(index);
+        return true;
     }
 
     public Item pop(){
@@ -115,6 +192,43 @@ public class ResizingArray <Item> implements Iterable<Item>{
         return indexOf(item) != -1;
     }
 
+    // Sorts the elements with the comparator, or by their natural ordering if it's null.
+    // The sort is stable and works on the backing array, nothing is copied out.
+    public void sort(Comparator<? super Item> comparator) {
+        Arrays.sort(arr, 0, len, orderOf(comparator));
+    }
+
+    // Same as sort, but the array is split into parts sorted in parallel and merged with
+    // fork/join tasks of the common pool. Small arrays are sorted sequentially.
+    public void parallelSort(Comparator<? super Item> comparator) {
+        Arrays.parallelSort(arr, 0, len, orderOf(comparator));
+    }
+
+    // Index of the key in an array sorted by the comparator (natural ordering if it's null),
+    // or -(insertion point) - 1 if it's not there, as Arrays.binarySearch. The array doesn't
+    // track whether it's sorted (set and add can break the order), so indexOf stays a linear
+    // scan of equals() and the sorted arrays are searched with this.
+    public int binarySearch(Item key, Comparator<? super Item> comparator) {
+        return Arrays.binarySearch(arr, 0, len, key, orderOf(comparator));
+    }
+
+    // Replaces every element by the combination of the elements up to it with the operator,
+    // which must be associative: [a, b, c] becomes [a, a op b, a op b op c]. The array is
+    // split in parts combined by fork/join tasks of the common pool.
+    public void parallelPrefix(BinaryOperator<Item> operator) {
+        Arrays.parallelPrefix(arr, 0, len, operator);
+    }
+
+    // Sets every element to the generator applied to its index, the indexes being split among
+    // the fork/join workers of the common pool, as Arrays.parallelSetAll does for a whole array
+    public void parallelSetAll(IntFunction<? extends Item> generator) {
+        IntStream.range(0, len).parallel().forEach(i -> arr[i] = generator.apply(i));
+    }
+
+    private static <Item> Comparator<? super Item> orderOf(Comparator<? super Item> comparator) {
+        return comparator != null ? comparator : (Comparator<? super Item>) Comparator.naturalOrder();
+    }
+
     @Override
     public Iterator<Item> iterator(){
         return new Iterator<Item>() {
@@ -133,6 +247,12 @@ public class ResizingArray <Item> implements Iterable<Item>{
         };
     }
 
+    // splits the index range in halves, every part knows its exact size
+    @Override
+    public Spliterator<Item> spliterator() {
+        return Spliterators.spliterator(arr, 0, len, Spliterator.ORDERED);
+    }
+
     public String toString(){
         if (len == 0) return "[]";
         else {
@@ -0,0 +1,146 @@
+/*
+*   Hierarchical timing wheel keeping the nodes of a BoundedCache that have a time to live,
+*   so the expired ones are found without scanning the cache.
+*
+*   The wheel has 5 levels of buckets, each bucket being a circular list of nodes:
+*       level 0     64 buckets of 2^30 ns (~1.07 s)
+*       level 1     64 buckets of 2^36 ns (~1.15 min)
+*       level 2     32 buckets of 2^42 ns (~1.22 h)
+*       level 3      4 buckets of 2^47 ns (~1.63 d)
+*       level 4      1 bucket for the rest
+*   A node goes to the lowest level whose buckets cover its remaining time to live, in the
+*   bucket of its expiration time. When advance() moves the time forward, the buckets the time
+*   went through are emptied: the nodes that are due are moved to the expired list and the
+*   others are scheduled again, on a lower level since their time to live is now shorter. A
+*   node is moved at most once per level, so the cost is amortized O(1) per node.
+*
+*   The wheel only collects the due nodes, the cache removes them from the expired list with
+*   pollExpired() in batches of its choice.
+* */
+
+final class TimerWheel<Key, Value> {
+
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final int[] SHIFT = {30, 36, 42, 47, 49};
+
+    private final BoundedCache.Node<Key, Value>[][] wheel;
+    // due nodes not removed from the cache yet
+    private final BoundedCache.Node<Key, Value> expired = sentinel();
+
+    // time the wheel was advanced to
+    private long nanos;
+
+    // the wheel arrays are created raw, Java can't create arrays of a generic type
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimerWheel(long nanos) {
+        this.nanos = nanos;
+
+        wheel = new BoundedCache.Node[BUCKETS.length][];
+        for (int i = 0; i < BUCKETS.length; i++) {
+            wheel[i] = new BoundedCache.Node[BUCKETS[i]];
+            for (int j = 0; j < BUCKETS[i]; j++) wheel[i][j] = sentinel();
+        }
+    }
+
+    private static <Key, Value> BoundedCache.Node<Key, Value> sentinel() {
+        BoundedCache.Node<Key, Value> sentinel = new BoundedCache.Node<>(null, null, 0, 0);
+        sentinel.timePrev = sentinel.timeNext = sentinel;
+        return sentinel;
+    }
+
+    // add a node expiring at node.expiresAt
+    void schedule(BoundedCache.Node<Key, Value> node) {
+        link(findBucket(node.expiresAt), node);
+    }
+
+    // remove a node from its bucket or from the expired list, O(1)
+    static <Key, Value> void unschedule(BoundedCache.Node<Key, Value> node) {
+        node.timePrev.timeNext = node.timeNext;
+        node.timeNext.timePrev = node.timePrev;
+        node.timePrev = node.timeNext = null;
+    }
+
+    static boolean isScheduled(BoundedCache.Node<?, ?> node) {
+        return node.timeNext != null;
+    }
+
+    // move the time to currentNanos, collecting the nodes that expired meanwhile
+    void advance(long currentNanos) {
+        long previousNanos = nanos;
+        nanos = currentNanos;
+
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previousNanos >> SHIFT[i];
+            long delta = (currentNanos >> SHIFT[i]) - previousTicks;
+            // the higher levels tick slower, none of them moved
+            if (delta <= 0) break;
+            expire(i, previousTicks, delta);
+        }
+    }
+
+    // collect the due nodes of the level 0 bucket of the current time. advance() only empties
+    // a bucket once the time went past it, so those nodes would wait for the next tick
+    void expireCurrentTick() {
+        expire(0, nanos >> SHIFT[0], 0);
+    }
+
+    // empty the buckets of a level from the one of previousTicks, where the last advance
+    // stopped, through delta ticks
+    private void expire(int level, long previousTicks, long delta) {
+        BoundedCache.Node<Key, Value>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int steps = (int) Math.min(delta + 1, buckets.length);
+        int start = (int) (previousTicks & mask);
+
+        for (int i = start; i < start + steps; i++) {
+            BoundedCache.Node<Key, Value> sentinel = buckets[i & mask];
+            BoundedCache.Node<Key, Value> node = sentinel.timeNext;
+            sentinel.timePrev = sentinel.timeNext = sentinel;
+
+            while (node != sentinel) {
+                BoundedCache.Node<Key, Value> next = node.timeNext;
+                if (node.expiresAt - nanos <= 0) link(expired, node);
+                else link(findBucket(node.expiresAt), node);
+                node = next;
+            }
+        }
+    }
+
+    // remove and return a node of the expired list, or null if it's empty
+    BoundedCache.Node<Key, Value> pollExpired() {
+        BoundedCache.Node<Key, Value> node = expired.timeNext;
+        if (node == expired) return null;
+
+        unschedule(node);
+        return node;
+    }
+
+    // drop every node
+    void clear() {
+        for (BoundedCache.Node<Key, Value>[] buckets : wheel)
+            for (BoundedCache.Node<Key, Value> sentinel : buckets) sentinel.timePrev = sentinel.timeNext = sentinel;
+        expired.timePrev = expired.timeNext = expired;
+    }
+
+    private BoundedCache.Node<Key, Value> findBucket(long expiresAt) {
+        long duration = expiresAt - nanos;
+        if (duration <= 0) return expired;
+
+        for (int i = 0; i < SHIFT.length - 1; i++) {
+            if (duration < 1L << SHIFT[i + 1]) {
+                BoundedCache.Node<Key, Value>[] buckets = wheel[i];
+                return buckets[(int) (expiresAt >> SHIFT[i]) & (buckets.length - 1)];
+            }
+        }
+
+        return wheel[SHIFT.length - 1][0];
+    }
+
+    // add a node at the end of the circular list of the sentinel
+    private static <Key, Value> void link(BoundedCache.Node<Key, Value> sentinel, BoundedCache.Node<Key, Value> node) {
+        node.timePrev = sentinel.timePrev;
+        node.timeNext = sentinel;
+        sentinel.timePrev.timeNext = node;
+        sentinel.timePrev = node;
+    }
+}
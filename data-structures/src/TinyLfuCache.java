@@ -0,0 +1,186 @@
+/**
+ * Bounded cache with the W-TinyLFU policy: a small LRU window in front of a main space that
+ * only admits an entry if it's used more often than the entry it would evict.
+ *
+ * New entries go to the window, which takes 1% of the maximum weight. The entries leaving the
+ * window are candidates for the main space, a segmented LRU split into a probation segment and
+ * a protected one (80% of the main space) that receives the entries hit while on probation.
+ * When the cache is full, a candidate is compared with the least recently used entry on
+ * probation and the one with the lower estimated frequency is evicted. The frequencies are
+ * kept by a FrequencySketch of every key read or written, evicted ones included, so a scan of
+ * keys used once can't push the frequently used entries out of the main space.
+ */
+public class TinyLfuCache<Key, Value> extends BoundedCache<Key, Value> {
+
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final AccessOrderList<Key, Value> window = new AccessOrderList<>();
+    private final AccessOrderList<Key, Value> probation = new AccessOrderList<>();
+    private final AccessOrderList<Key, Value> protectedSegment = new AccessOrderList<>();
+
+    private final long windowMaximum;
+    private final long protectedMaximum;
+
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    // bounded by the number of entries
+    public TinyLfuCache(long maximumSize) {
+        this(maximumSize, null, null);
+    }
+
+    public TinyLfuCache(long maximumWeight, Weigher<? super Key, ? super Value> weigher) {
+        this(maximumWeight, weigher, null);
+    }
+
+    public TinyLfuCache(long maximumWeight, Weigher<? super Key, ? super Value> weigher,
+                        EvictionListener<? super Key, ? super Value> evictionListener) {
+        super(maximumWeight, weigher, evictionListener);
+
+        windowMaximum = Math.max(1, maximumWeight * WINDOW_PERCENT / 100);
+        protectedMaximum = (maximumWeight - windowMaximum) * PROTECTED_PERCENT / 100;
+    }
+
+    @Override
+    protected void onInsert(Node<Key, Value> node) {
+        // the sketch is sized by the number of entries, not by their weight
+        sketch.ensureCapacity(size());
+        sketch.increment(node.hash);
+        window.addLast(node);
+    }
+
+    @Override
+    protected void onAccess(Node<Key, Value> node) {
+        sketch.increment(node.hash);
+
+        if (node.list == probation) {
+            // a second hit promotes the entry, demoting the least recently used protected ones
+            probation.remove(node);
+            protectedSegment.addLast(node);
+            while (protectedSegment.weight() > protectedMaximum) {
+                Node<Key, Value> demoted = protectedSegment.first();
+                protectedSegment.remove(demoted);
+                probation.addLast(demoted);
+            }
+        } else {
+            node.list.moveToLast(node);
+        }
+    }
+
+    @Override
+    protected void onMiss(int hash) {
+        sketch.increment(hash);
+    }
+
+    @Override
+    protected void evictIfNeeded() {
+        while (window.weight() > windowMaximum) {
+            Node<Key, Value> candidate = window.first();
+            window.remove(candidate);
+            probation.addLast(candidate);
+            if (weightedSize > maximumWeight) admit(candidate);
+        }
+
+        // the window fits, but the main space may have grown past its share through updates
+        // of the weights of its entries
+        while (weightedSize > maximumWeight) {
+            if (!probation.isEmpty()) evict(probation.first());
+            else if (!protectedSegment.isEmpty()) evict(protectedSegment.first());
+            else evict(window.first());
+        }
+    }
+
+    // evict the candidate just moved to probation, or the entries of the main space
+    // used less often than it until the cache fits
+    private void admit(Node<Key, Value> candidate) {
+        while (weightedSize > maximumWeight) {
+            Node<Key, Value> victim = probation.first() != candidate ? probation.first() : protectedSegment.first();
+            if (victim == null || sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) {
+                evict(candidate);
+                return;
+            }
+            evict(victim);
+        }
+    }
+
+    @Override
+    protected void onClear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    // Count-min sketch with 4 bit counters estimating how often a key was used. Every key has
+    // a counter in 4 rows picked by 4 hashes and its estimate is the smallest of them. A long
+    // packs 16 counters, and a key uses one of 4 groups of 4 of them in each of its longs.
+    // The counters saturate at 15; once the sample of increments reaches 10 times the number
+    // of longs, they're all halved so the estimates follow the recent history.
+    static final class FrequencySketch {
+
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final long ONE_MASK = 0x1111111111111111L;
+
+        private static final int MINIMUM_LENGTH = 16;
+
+        private long[] table = new long[MINIMUM_LENGTH];
+        private int sampleSize = 10 * MINIMUM_LENGTH;
+        // increments since the last reset
+        private int additions;
+
+        // grow the sketch to a long per entry, forgetting the counts so far
+        void ensureCapacity(int entries) {
+            if (entries <= table.length) return;
+
+            int length = Hashing.tableSizeFor(entries);
+            table = new long[length];
+            sampleSize = length <= Integer.MAX_VALUE / 10 ? 10 * length : Integer.MAX_VALUE;
+            additions = 0;
+        }
+
+        int frequency(int hash) {
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int count = (int) ((table[indexOf(hash, i)] >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) added |= incrementAt(indexOf(hash, i), start + i);
+
+            if (added && ++additions == sampleSize) reset();
+        }
+
+        // increment the j-th counter of the i-th long unless it's saturated
+        private boolean incrementAt(int i, int j) {
+            int offset = j << 2;
+            long mask = 0xfL << offset;
+            if ((table[i] & mask) == mask) return false;
+
+            table[i] += 1L << offset;
+            return true;
+        }
+
+        private int indexOf(int hash, int row) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            h += h >>> 32;
+            return (int) h & (table.length - 1);
+        }
+
+        // halve every counter, the odd ones lose their remainder
+        private void reset() {
+            int odd = 0;
+            for (int i = 0; i < table.length; i++) {
+                odd += Long.bitCount(table[i] & ONE_MASK);
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions = (additions - (odd >>> 2)) >>> 1;
+        }
+    }
+}